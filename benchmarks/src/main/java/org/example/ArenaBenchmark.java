@@ -0,0 +1,72 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of an ArenaEngine as the number of snakes grows, at the same density:
+ * about 400 cells and one food per snake. Snakes go straight until blocked, turn
+ * now and then, and are respawned as soon as they die. A tick costs O(snakes), so
+ * the time per snake should stay flat from 100 to 10k snakes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaBenchmark {
+    private static final int BORDER_OFFSET = 2;
+
+    @Param({"100", "1000", "10000"})
+    public int snakes;
+
+    private ArenaEngine arena;
+    private byte[] inputs;
+    private Rng steering;
+
+    @Setup
+    public void setup() {
+        int gridSize = (int) Math.ceil(20 * Math.sqrt(snakes)) + 2 * BORDER_OFFSET;
+        arena = new ArenaEngine(gridSize, BORDER_OFFSET, snakes, snakes, new Rng(1));
+        inputs = new byte[snakes];
+        steering = new Rng(2);
+    }
+
+    @Benchmark
+    public Object step() {
+        for (int s = 0; s < snakes; s++) {
+            if (!arena.alive[s]) {
+                arena.respawn(s);
+            }
+            inputs[s] = steer(s);
+        }
+        arena.step(inputs);
+        return arena;
+    }
+
+    /**
+     * Keeps going straight when the way is clear, turning at random one tick in 16,
+     * and otherwise takes the first turn that is not blocked.
+     */
+    private byte steer(int snake) {
+        int current = arena.direction[snake];
+        long random = steering.nextLong();
+        if ((random & 15) != 0 && !blockedTowards(snake, current)) {
+            return ArenaEngine.NO_INPUT;
+        }
+        int turn = (current & 2) ^ 2; // The first of the two directions across the current one
+        int first = turn | (int) (random >>> 4 & 1);
+        if (!blockedTowards(snake, first)) {
+            return (byte) first;
+        }
+        return (byte) (first ^ 1);
+    }
+
+    private boolean blockedTowards(int snake, int d) {
+        int sign = (d & 1) * 2 - 1;
+        int horizontal = d >> 1;
+        return arena.blocked(arena.headX[snake] + horizontal * sign, arena.headY[snake] + (1 - horizontal) * sign);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+/**
+ * Builds engines in a known state for the benchmarks.
+ * The snake is laid along a Hamiltonian cycle of the play area, so following
+ * the cycle keeps it alive for as long as the benchmark runs.
+ */
+final class Boards {
+    private Boards() {
+    }
+
+    /**
+     * Returns the play-area cells in cycle order, packed as y * gridSize + x.
+     * The play area must have an even side length.
+     */
+    static int[] cycle(int gridSize, int borderOffset) {
+        int n = gridSize - 2 * borderOffset;
+        if (n % 2 != 0) {
+            throw new IllegalArgumentException("Play area side must be even: " + n);
+        }
+        int[] order = new int[n * n];
+        int i = 0;
+        // Along the top row, then back and forth over the remaining columns,
+        // then up the first column to where the cycle started
+        for (int x = 0; x < n; x++) {
+            order[i++] = cell(gridSize, borderOffset, x, 0);
+        }
+        for (int y = 1; y < n; y++) {
+            if (y % 2 == 1) {
+                for (int x = n - 1; x >= 1; x--) {
+                    order[i++] = cell(gridSize, borderOffset, x, y);
+                }
+            } else {
+                for (int x = 1; x < n; x++) {
+                    order[i++] = cell(gridSize, borderOffset, x, y);
+                }
+            }
+        }
+        for (int y = n - 1; y >= 1; y--) {
+            order[i++] = cell(gridSize, borderOffset, 0, y);
+        }
+        return order;
+    }
+
+    /**
+     * Returns, for every grid cell on the cycle, the direction to the next cycle cell.
+     */
+    static Direction[] directions(int gridSize, int[] cycle) {
+        Direction[] next = new Direction[gridSize * gridSize];
+        for (int i = 0; i < cycle.length; i++) {
+            int from = cycle[i];
+            int to = cycle[(i + 1) % cycle.length];
+            if (to == from + 1) {
+                next[from] = Direction.RIGHT;
+            } else if (to == from - 1) {
+                next[from] = Direction.LEFT;
+            } else if (to > from) {
+                next[from] = Direction.DOWN;
+            } else {
+                next[from] = Direction.UP;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Creates an engine whose snake covers the given share of the play area.
+     * @param fill Share of the play area covered by the snake; at least one cell
+     *             and at most all but one cell are used, so there is always room for food.
+     */
+    static GameEngine engine(int gridSize, int borderOffset, double fill, long seed) {
+        int[] cycle = cycle(gridSize, borderOffset);
+        int length = Math.max(1, Math.min(cycle.length - 1, (int) (fill * cycle.length)));
+
+        GameEngine engine = new GameEngine(gridSize, borderOffset, new Rng(seed));
+        Snake snake = new Snake(gridSize, cycle[0] % gridSize, cycle[0] / gridSize);
+        for (int i = 1; i < length; i++) {
+            snake.grow(cycle[i] % gridSize, cycle[i] / gridSize);
+        }
+        if (length > 1) {
+            // Heading the way the body was laid, so the next cycle step is never taken for a reversal
+            Direction[] directions = directions(gridSize, cycle);
+            snake.direction = directions[cycle[length - 2]];
+            if (directions[cycle[length - 1]] == snake.direction.opposite()) {
+                // A dropped first step ends the game, and the benchmarks would time their setup instead
+                throw new IllegalStateException("The first cycle step reverses the snake");
+            }
+        }
+        FreeCells freeCells = new FreeCells(gridSize);
+        for (int i = length; i < cycle.length; i++) {
+            freeCells.add(cycle[i]);
+        }
+        engine.snake = snake;
+        engine.freeCells = freeCells;
+        engine.spawnFood();
+        return engine;
+    }
+
+    private static int cell(int gridSize, int borderOffset, int x, int y) {
+        return (y + borderOffset) * gridSize + x + borderOffset;
+    }
+}
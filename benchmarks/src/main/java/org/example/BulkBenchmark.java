@@ -0,0 +1,67 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one tick of many games in a BulkEngine with stepping the same number
+ * of separate GameEngines. Every snake steers along the Hamiltonian cycle, so
+ * games run long and both sides do the same work; a finished game is restarted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkBenchmark {
+    private static final int GRID_SIZE = 30;
+    private static final int BORDER_OFFSET = 2;
+
+    @Param({"64", "1024", "8192"})
+    public int games;
+
+    private Direction[] directions;
+    private BulkEngine bulk;
+    private byte[] inputs;
+    private GameEngine[] engines;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        directions = Boards.directions(GRID_SIZE, Boards.cycle(GRID_SIZE, BORDER_OFFSET));
+        bulk = new BulkEngine(games, GRID_SIZE, BORDER_OFFSET);
+        inputs = new byte[games];
+        engines = new GameEngine[games];
+        for (int g = 0; g < games; g++) {
+            bulk.reset(g, g);
+            engines[g] = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(g));
+        }
+        seed = games;
+    }
+
+    @Benchmark
+    public Object bulkStep() {
+        for (int g = 0; g < games; g++) {
+            if (bulk.state[g] != BulkEngine.PLAYING) {
+                bulk.reset(g, seed++);
+            }
+            inputs[g] = (byte) directions[bulk.headY[g] * GRID_SIZE + bulk.headX[g]].ordinal();
+        }
+        bulk.step(inputs);
+        return bulk;
+    }
+
+    @Benchmark
+    public Object engineStep() {
+        for (GameEngine engine : engines) {
+            if (engine.state != GameState.PLAYING) {
+                engine.reset();
+            }
+            Snake snake = engine.snake;
+            engine.step(directions[snake.headY() * GRID_SIZE + snake.headX()]);
+        }
+        return engines;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Checks that nothing keeps the CPU busy while a menu is shown. A game is
+ * played to its end by the autopilot, with the simulation thread and the high
+ * score writer the real game uses; then the main thread idles as it would in
+ * glfwWaitEvents, and the CPU time every thread used meanwhile is reported.
+ * <p>
+ * The main thread's own menu cost needs a display; the game prints it when
+ * started with -Dsnake.cpuUsage=true.
+ * <p>
+ * Arguments: [idle seconds], defaulting to 10.
+ */
+public class MenuIdleCheck {
+    private static final int GRID_SIZE = 30;
+    private static final int BORDER_OFFSET = 2;
+    private static final long REPORT_NANOS = 1_000_000; // Threads that used less CPU than this are not listed
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        Path scores = Files.createTempDirectory("menu-idle-check");
+        try (HighScoreStore highScores = new HighScoreStore(scores)) {
+            GameEngine engine = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(1));
+            Simulation simulation = new Simulation(engine, Difficulty.HARD, new InputQueue(16), null, highScores,
+                    new FrameMetrics(), new PathController());
+            simulation.start();
+            long end = System.nanoTime() + 20_000_000_000L;
+            while (simulation.latest().state == GameState.PLAYING && System.nanoTime() < end) {
+                Thread.sleep(50);
+            }
+            simulation.stop(); // What the game does when the game over menu appears
+            System.out.printf("Game stopped at tick %d with score %d%n", engine.tick, engine.score);
+
+            long[] ids = threads.getAllThreadIds();
+            long[] cpuStart = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                cpuStart[i] = threads.getThreadCpuTime(ids[i]);
+            }
+            long processStart = os.getProcessCpuTime();
+            long wallStart = System.nanoTime();
+            Thread.sleep(seconds * 1000L); // Stands in for glfwWaitEvents with no input arriving
+            long wall = System.nanoTime() - wallStart;
+            long process = os.getProcessCpuTime() - processStart;
+
+            System.out.printf("Process: %.1f ms CPU over %.1f s idle (%.3f%%)%n",
+                    process / 1e6, wall / 1e9, 100.0 * process / wall);
+            for (int i = 0; i < ids.length; i++) {
+                long cpu = threads.getThreadCpuTime(ids[i]);
+                if (cpu != -1 && cpuStart[i] != -1 && cpu - cpuStart[i] >= REPORT_NANOS) {
+                    System.out.printf("  %s: %.1f ms%n", threads.getThreadInfo(ids[i]).getThreadName(),
+                            (cpu - cpuStart[i]) / 1e6);
+                }
+            }
+        }
+    }
+}
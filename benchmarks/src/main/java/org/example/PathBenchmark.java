@@ -0,0 +1,58 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping the autopilot's distance field current for one tick: repaired
+ * incrementally around the moved head and tail, against a full breadth-first
+ * search every tick. The snake follows the Hamiltonian cycle over a quarter of
+ * the play area, so most ticks move without eating, as in a real game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+    private static final int BORDER_OFFSET = 2;
+
+    @Param({"30", "128", "512", "1024"})
+    public int gridSize;
+
+    private GameEngine engine;
+    private Direction[] directions;
+    private DistanceField field;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        engine = Boards.engine(gridSize, BORDER_OFFSET, 0.25, 42);
+        directions = Boards.directions(gridSize, Boards.cycle(gridSize, BORDER_OFFSET));
+        field = new DistanceField(engine.level());
+        field.rebuild(engine);
+    }
+
+    @Benchmark
+    public int incremental() {
+        step();
+        field.update(engine);
+        return field.distance(engine.segment(0));
+    }
+
+    @Benchmark
+    public int fullSearch() {
+        step();
+        field.rebuild(engine);
+        return field.distance(engine.segment(0));
+    }
+
+    private void step() {
+        Snake snake = engine.snake;
+        if (engine.step(directions[snake.headY() * gridSize + snake.headX()]) != GameState.PLAYING) {
+            setup(); // Following the cycle only ends when the board is full
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full game frame through the CPU renderer, which shows the cost of
+ * the frame pipeline without any GPU driver involved. The view is fixed at the
+ * window's 30 cells, so the frame time should stay flat as the grid grows.
+ * <p>
+ * The chunk benchmarks step the engine before every frame and build the body
+ * vertices of the chunks in view, as ChunkMeshes does before uploading them:
+ * once for only the chunks the tick marked dirty, and once for every chunk in
+ * view, which is what a renderer without dirty marks would do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderBenchmark {
+    private static final int BORDER_OFFSET = 2;
+    private static final int VIEW_SIZE = 30;
+
+    @Param({"30", "256", "1024", "4096"})
+    public int gridSize;
+
+    // Share of the play area covered by the snake
+    @Param({"0.0", "0.5", "0.9"})
+    public double fill;
+
+    private GameEngine engine;
+    private SoftwareRenderer renderer;
+    private Direction[] directions;
+    private Camera camera;
+    private FloatBuffer quads;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        engine = Boards.engine(gridSize, BORDER_OFFSET, fill, 42);
+        renderer = new SoftwareRenderer(900, 900, VIEW_SIZE);
+        directions = Boards.directions(gridSize, Boards.cycle(gridSize, BORDER_OFFSET));
+        camera = new Camera(VIEW_SIZE);
+        quads = FloatBuffer.allocate(ChunkGrid.CHUNK_SIZE * ChunkGrid.CHUNK_SIZE * 8);
+    }
+
+    @Benchmark
+    public Object renderGame() {
+        renderer.renderGame(engine, "EASY", 0.5f);
+        return renderer.framebuffer();
+    }
+
+    @Benchmark
+    public int stepAndRebuildDirtyChunks() {
+        step();
+        return rebuildChunksInView(false);
+    }
+
+    @Benchmark
+    public int stepAndRebuildAllChunks() {
+        step();
+        return rebuildChunksInView(true);
+    }
+
+    private void step() {
+        int head = engine.segment(0);
+        if (engine.step(directions[head]) != GameState.PLAYING) {
+            // Following the cycle only ends when the board is full
+            setup();
+        }
+    }
+
+    /**
+     * Builds the vertices of the chunks in view, the way ChunkMeshes.render() picks them.
+     * @return Quads written, so the work is not optimized away.
+     */
+    private int rebuildChunksInView(boolean all) {
+        ChunkGrid chunks = engine.chunks();
+        camera.follow(engine, 0);
+        int shown = camera.cellsShown(engine);
+        int size = ChunkGrid.CHUNK_SIZE;
+        int firstX = (int) camera.left() / size;
+        int firstY = (int) camera.top() / size;
+        int lastX = Math.min((int) (camera.left() + shown) / size, chunks.chunksPerSide() - 1);
+        int lastY = Math.min((int) (camera.top() + shown) / size, chunks.chunksPerSide() - 1);
+
+        int written = 0;
+        for (int cy = firstY; cy <= lastY; cy++) {
+            for (int cx = firstX; cx <= lastX; cx++) {
+                int chunk = cy * chunks.chunksPerSide() + cx;
+                if (all || chunks.isDirty(chunk)) {
+                    quads.clear();
+                    written += chunks.writeBody(engine, chunk, quads);
+                }
+                // Chunks out of view stay dirty until they scroll in, as in the game
+                chunks.clean(chunk);
+            }
+        }
+        return written;
+    }
+}
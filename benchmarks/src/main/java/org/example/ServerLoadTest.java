@@ -0,0 +1,122 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Runs a GameServer on localhost with thousands of stand-in clients on one
+ * selector thread. Each client reads every message into an ArenaMirror and
+ * turns at random now and then. After a warm-up the server's tick time
+ * percentiles and the bytes it sends per tick are reported.
+ * <p>
+ * Arguments: [clients] [seconds] [room size], defaulting to 2000, 20 and 16.
+ * Clients and server share the machine, so the numbers include the clients' load.
+ */
+public class ServerLoadTest {
+    private static final int GRID_SIZE = 64;
+    private static final int BORDER_OFFSET = 1;
+    private static final long TICK_NANOS = 70_000_000; // MEDIUM
+    private static final long WARM_UP_NANOS = 5_000_000_000L;
+
+    private static class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        final ByteBuffer turn = ByteBuffer.allocate(1);
+        final ArenaMirror mirror = new ArenaMirror();
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int roomSize = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        try (GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", 0), GRID_SIZE, BORDER_OFFSET,
+                roomSize, roomSize, TICK_NANOS, 1);
+             Selector selector = Selector.open()) {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.port());
+            for (int i = 0; i < clients; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Client(channel));
+            }
+
+            Rng rng = new Rng(2);
+            long received = 0;
+            long messages = 0;
+            long start = System.nanoTime();
+            long measureStart = start + WARM_UP_NANOS;
+            long end = measureStart + seconds * 1_000_000_000L;
+            boolean measuring = false;
+            long startTicks = 0;
+            long startBytes = 0;
+            while (System.nanoTime() < end) {
+                if (!measuring && System.nanoTime() >= measureStart) {
+                    measuring = true;
+                    server.tickTimes().reset();
+                    startTicks = server.ticks();
+                    startBytes = server.bytesQueued();
+                    received = 0;
+                    messages = 0;
+                }
+                selector.select(10);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    int read = client.channel.read(client.in);
+                    if (read < 0) {
+                        throw new IllegalStateException("Server closed a client connection");
+                    }
+                    received += read;
+                    messages += drain(client, rng);
+                }
+            }
+
+            long ticks = server.ticks() - startTicks;
+            long bytes = server.bytesQueued() - startBytes;
+            Histogram tickTimes = server.tickTimes();
+            System.out.printf("%d clients in rooms of %d, %d ticks in %d s (%d connected at the end)%n",
+                    clients, roomSize, ticks, seconds, server.clients());
+            System.out.printf("Tick time: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    tickTimes.percentile(50) / 1e6, tickTimes.percentile(99) / 1e6,
+                    tickTimes.percentile(99.9) / 1e6, tickTimes.max() / 1e6);
+            System.out.printf("Sent per tick: %d bytes, %.1f per client%n",
+                    bytes / Math.max(1, ticks), (double) bytes / Math.max(1, ticks) / clients);
+            System.out.printf("Received by clients: %d bytes in %d messages%n", received, messages);
+        }
+    }
+
+    /**
+     * Applies every complete message in the client's buffer, and answers some of them with a turn.
+     * @return The number of messages applied.
+     */
+    private static int drain(Client client, Rng rng) throws IOException {
+        ByteBuffer in = client.in.flip();
+        int count = 0;
+        for (int framed = ArenaProtocol.framedLength(in); framed != -1 && framed <= in.remaining();
+             framed = ArenaProtocol.framedLength(in)) {
+            int length = ArenaProtocol.getVarInt(in);
+            ByteBuffer message = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            client.mirror.apply(message);
+            count++;
+            if (rng.nextInt(8) == 0) {
+                client.turn.clear().put((byte) rng.nextInt(4)).flip();
+                client.channel.write(client.turn);
+            }
+        }
+        in.compact();
+        return count;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-tick hot paths: a full engine step, a bare snake move,
+ * a food spawn, the body walk the renderer does every frame, and a step
+ * followed by the snapshot the simulation keeps of every tick for rewinding.
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    private static final int BORDER_OFFSET = 2;
+
+    // 30 is the default window grid (a 26x26 play area), the rest are custom large grids
+    @Param({"30", "128", "1024"})
+    public int gridSize;
+
+    // Share of the play area covered by the snake
+    @Param({"0.0", "0.25", "0.5", "0.9"})
+    public double fill;
+
+    private GameEngine engine;
+    private Direction[] directions;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        engine = Boards.engine(gridSize, BORDER_OFFSET, fill, 42);
+        directions = Boards.directions(gridSize, Boards.cycle(gridSize, BORDER_OFFSET));
+    }
+
+    @Benchmark
+    public GameState step() {
+        Snake snake = engine.snake;
+        GameState state = engine.step(directions[snake.headY() * gridSize + snake.headX()]);
+        if (state != GameState.PLAYING) {
+            // Following the cycle only ends when the board is full
+            setup();
+        }
+        return state;
+    }
+
+    @Benchmark
+    public GameSnapshot stepAndSnapshot() {
+        step();
+        return engine.snapshot();
+    }
+
+    @Benchmark
+    public int move() {
+        // Moves without eating, so the snake length and the fill ratio stay fixed
+        Snake snake = engine.snake;
+        snake.direction = directions[snake.headY() * gridSize + snake.headX()];
+        return snake.move(snake.nextHeadX(), snake.nextHeadY());
+    }
+
+    @Benchmark
+    public int spawnFood() {
+        engine.spawnFood();
+        return engine.food;
+    }
+
+    @Benchmark
+    public void renderPrep(Blackhole blackhole) {
+        // The coordinate walk renderSnake() does for every segment
+        Snake snake = engine.snake;
+        for (int i = 0; i < snake.length(); i++) {
+            blackhole.consume(snake.segmentX(i));
+            blackhole.consume(snake.segmentY(i));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports how many bytes the current thread allocates per frame.
+ * Enabled with -Dsnake.allocations=true; otherwise every call is a no-op.
+ */
+public class AllocationMeter {
+    private static final boolean ENABLED = Boolean.getBoolean("snake.allocations");
+    private static final int FRAMES_PER_REPORT = 600;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long start = -1;
+    private int frames;
+
+    /**
+     * Counts one frame and prints the average allocation once enough frames have passed.
+     */
+    void frame() {
+        if (!ENABLED) {
+            return;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        if (start == -1) {
+            start = allocated;
+            return;
+        }
+        if (++frames == FRAMES_PER_REPORT) {
+            System.out.printf("%d bytes allocated per frame%n", (allocated - start) / frames);
+            // Read the counter again so the report itself is not counted
+            start = threads.getCurrentThreadAllocatedBytes();
+            frames = 0;
+        }
+    }
+
+    /**
+     * Starts counting afresh, e.g. after a pause during which frames were not drawn.
+     */
+    void reset() {
+        start = -1;
+        frames = 0;
+    }
+}
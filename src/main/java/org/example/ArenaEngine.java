@@ -0,0 +1,353 @@
+package org.example;
+
+/**
+ * Many snakes sharing one grid, with food scattered over it. Every cell records
+ * which snake's body covers it, so a head is checked against all bodies with one
+ * lookup, and heads moving into the same cell meet in a grid stamped with the
+ * tick each head arrived on. A tick therefore costs O(snakes), however long
+ * the snakes grow.
+ * <p>
+ * The rules follow GameEngine where they carry over: a head may take the cell a
+ * tail is leaving, unless that snake is eating this tick. Heads that reach the
+ * same cell on the same tick both die, and so do two heads that swap cells,
+ * which one-cell snakes would otherwise pass through. A dead snake's body is
+ * cleared at the end of the tick, and the snake stays dead until respawned.
+ */
+public final class ArenaEngine {
+    static final byte NO_INPUT = -1; // Input for a snake that keeps going straight
+
+    private static final int EMPTY = 0;
+    private static final int FOOD = -1; // Other values of owner are snake + 1
+
+    private final int gridSize;
+    private final int borderOffset;
+    private final int snakes;
+    private final int foodCount; // Food kept on the grid while there is room for it
+    private final Rng rng;
+
+    // One slot per snake
+    final int[] headX;
+    final int[] headY;
+    final byte[] direction; // Direction ordinal
+    final int[] length;
+    final int[] score;
+    final boolean[] alive;
+    private final int[][] bodies; // Body rings, oldest (tail) to newest (head); grow in powers of two
+    private final int[] head; // Index of the head in the snake's ring
+
+    // One slot per cell, packed as y * gridSize + x
+    private final int[] owner; // EMPTY, FOOD, or the snake whose body covers the cell plus one
+    // Tick on which a head last moved into the cell in the high half, and that snake in the low half;
+    // kept in one array so the check costs one cache miss on large grids
+    private final long[] headClaims;
+    private final FreeCells empty; // Cells of the play area with neither body nor food
+
+    // Per-tick results
+    private final int[] next; // Cell each head moves into
+    private final boolean[] eating;
+    private final boolean[] dying;
+
+    final int[] placedFood; // Cells food was placed on by the last step, for clients mirroring the grid
+    int placed;
+    int food; // Food on the grid
+    int living;
+    long tick;
+
+    /**
+     * Starts every snake at a random empty cell, one cell long and heading a random way.
+     */
+    public ArenaEngine(int gridSize, int borderOffset, int snakes, int foodCount, Rng rng) {
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.snakes = snakes;
+        this.foodCount = foodCount;
+        this.rng = rng;
+
+        headX = new int[snakes];
+        headY = new int[snakes];
+        direction = new byte[snakes];
+        length = new int[snakes];
+        score = new int[snakes];
+        alive = new boolean[snakes];
+        bodies = new int[snakes][4];
+        head = new int[snakes];
+
+        int cells = gridSize * gridSize;
+        owner = new int[cells];
+        headClaims = new long[cells]; // Tick 0 is never stepped, so no cell starts claimed
+        empty = new FreeCells(gridSize);
+        for (int y = borderOffset; y < gridSize - borderOffset; y++) {
+            for (int x = borderOffset; x < gridSize - borderOffset; x++) {
+                empty.add(y * gridSize + x);
+            }
+        }
+
+        next = new int[snakes];
+        eating = new boolean[snakes];
+        dying = new boolean[snakes];
+        placedFood = new int[foodCount];
+
+        for (int s = 0; s < snakes; s++) {
+            respawn(s);
+        }
+        spawnFood();
+    }
+
+    /**
+     * Brings a dead snake back at a random empty cell, one cell long.
+     * @return False if the grid has no empty cell, and the snake stays dead.
+     */
+    boolean respawn(int snake) {
+        if (alive[snake]) {
+            throw new IllegalStateException("Snake " + snake + " is alive");
+        }
+        if (empty.isEmpty()) {
+            return false;
+        }
+        int cell = empty.get(rng.nextInt(empty.size()));
+        empty.remove(cell);
+        owner[cell] = snake + 1;
+        bodies[snake][0] = cell;
+        head[snake] = 0;
+        length[snake] = 1;
+        score[snake] = 0;
+        headX[snake] = cell % gridSize;
+        headY[snake] = cell / gridSize;
+        direction[snake] = (byte) rng.nextInt(4);
+        alive[snake] = true;
+        living++;
+        return true;
+    }
+
+    /**
+     * Brings a dead snake back on the given cells instead of a random one, for
+     * setting up fixed positions.
+     * @param cells Distinct empty cells of the body, from the tail to the head.
+     */
+    void place(int snake, int[] cells, Direction heading) {
+        if (alive[snake]) {
+            throw new IllegalStateException("Snake " + snake + " is alive");
+        }
+        for (int cell : cells) {
+            if (!empty.contains(cell)) {
+                throw new IllegalArgumentException("Cell " + cell + " is not empty");
+            }
+        }
+        length[snake] = 0;
+        head[snake] = -1;
+        for (int cell : cells) {
+            addHead(snake, cell);
+            owner[cell] = snake + 1;
+            empty.remove(cell);
+        }
+        score[snake] = 0;
+        headX[snake] = cells[cells.length - 1] % gridSize;
+        headY[snake] = cells[cells.length - 1] / gridSize;
+        direction[snake] = (byte) heading.ordinal();
+        alive[snake] = true;
+        living++;
+    }
+
+    /**
+     * Puts food on an empty cell, for setting up fixed positions.
+     */
+    void placeFood(int cell) {
+        if (!empty.contains(cell)) {
+            throw new IllegalArgumentException("Cell " + cell + " is not empty");
+        }
+        empty.remove(cell);
+        owner[cell] = FOOD;
+        food++;
+    }
+
+    /**
+     * Removes a living snake from the grid, as if it had died.
+     */
+    void kill(int snake) {
+        if (alive[snake]) {
+            clear(snake);
+        }
+    }
+
+    /**
+     * Advances every living snake by one tick.
+     * @param inputs Direction ordinal requested for each snake, or NO_INPUT to keep going straight.
+     *               A request to reverse into the body is ignored.
+     */
+    void step(byte[] inputs) {
+        tick++;
+        placed = 0;
+        int low = borderOffset;
+        int high = gridSize - borderOffset;
+
+        // Turn and advance the heads, and claim the cells they move into
+        for (int s = 0; s < snakes; s++) {
+            if (!alive[s]) {
+                continue;
+            }
+            int current = direction[s];
+            int input = inputs[s];
+            int d = input >= 0 && input != (current ^ 1) ? input : current; // Opposites pair up as 0-1 and 2-3
+            direction[s] = (byte) d;
+            int sign = (d & 1) * 2 - 1; // UP and LEFT are -1
+            int horizontal = d >> 1; // LEFT and RIGHT
+            int x = headX[s] + horizontal * sign;
+            int y = headY[s] + (1 - horizontal) * sign;
+            if (x < low || x >= high || y < low || y >= high) {
+                next[s] = -1;
+                dying[s] = true;
+                continue;
+            }
+            int cell = y * gridSize + x;
+            next[s] = cell;
+            eating[s] = owner[cell] == FOOD;
+            long claim = headClaims[cell];
+            if (claim >>> 32 == (tick & 0xFFFFFFFFL)) {
+                // Another head got here this tick: both die
+                dying[s] = true;
+                dying[(int) claim] = true;
+            } else {
+                headClaims[cell] = tick << 32 | s;
+            }
+        }
+
+        // Heads against bodies, as they were at the start of the tick, and against each other head-on
+        for (int s = 0; s < snakes; s++) {
+            if (!alive[s] || dying[s]) {
+                continue;
+            }
+            if (hitsBody(next[s])) {
+                dying[s] = true;
+            } else {
+                int other = owner[next[s]] - 1;
+                if (other >= 0 && other != s && next[s] == segment(other, 0) && next[other] == segment(s, 0)) {
+                    dying[s] = true;
+                    dying[other] = true;
+                }
+            }
+        }
+
+        // Free the tails before moving the heads, which may enter those cells
+        for (int s = 0; s < snakes; s++) {
+            if (alive[s] && !dying[s] && !eating[s]) {
+                int tail = bodies[s][tailIndex(s)];
+                owner[tail] = EMPTY;
+                empty.add(tail);
+                length[s]--;
+            }
+        }
+        for (int s = 0; s < snakes; s++) {
+            if (!alive[s] || dying[s]) {
+                continue;
+            }
+            int cell = next[s];
+            if (eating[s]) {
+                score[s]++;
+                food--;
+            }
+            addHead(s, cell);
+            owner[cell] = s + 1;
+            empty.remove(cell);
+            headX[s] = cell % gridSize;
+            headY[s] = cell / gridSize;
+        }
+
+        for (int s = 0; s < snakes; s++) {
+            if (dying[s]) {
+                clear(s);
+            }
+            eating[s] = false;
+        }
+        spawnFood();
+    }
+
+    /**
+     * Checks whether a head moving into the given cell next tick would hit a wall
+     * or a body, ignoring which tails leave and where other heads go.
+     */
+    boolean blocked(int x, int y) {
+        if (x < borderOffset || x >= gridSize - borderOffset ||
+                y < borderOffset || y >= gridSize - borderOffset) {
+            return true;
+        }
+        return owner[y * gridSize + x] > 0;
+    }
+
+    /**
+     * Returns the packed cell of a body segment, counted from the head (0) to the tail.
+     */
+    int segment(int snake, int i) {
+        int[] ring = bodies[snake];
+        return ring[(head[snake] - i) & (ring.length - 1)];
+    }
+
+    /**
+     * Returns whether the cell holds food.
+     */
+    boolean food(int cell) {
+        return owner[cell] == FOOD;
+    }
+
+    int snakes() {
+        return snakes;
+    }
+
+    int gridSize() {
+        return gridSize;
+    }
+
+    private boolean hitsBody(int cell) {
+        int other = owner[cell] - 1;
+        if (other < 0) {
+            return false; // Empty or food
+        }
+        // The cell a tail leaves is free, unless that snake grows this tick instead
+        return eating[other] || bodies[other][tailIndex(other)] != cell;
+    }
+
+    private void addHead(int snake, int cell) {
+        int[] ring = bodies[snake];
+        if (length[snake] == ring.length) {
+            int[] grown = new int[ring.length * 2];
+            for (int i = 0; i < length[snake]; i++) {
+                grown[length[snake] - 1 - i] = segment(snake, i);
+            }
+            bodies[snake] = ring = grown;
+            head[snake] = length[snake] - 1;
+        }
+        head[snake] = (head[snake] + 1) & (ring.length - 1);
+        ring[head[snake]] = cell;
+        length[snake]++;
+    }
+
+    private int tailIndex(int snake) {
+        return (head[snake] - length[snake] + 1) & (bodies[snake].length - 1);
+    }
+
+    /**
+     * Removes a dead snake's body from the grid.
+     */
+    private void clear(int snake) {
+        for (int i = 0; i < length[snake]; i++) {
+            int cell = segment(snake, i);
+            if (owner[cell] == snake + 1) { // A living head may already have taken the tail cell
+                owner[cell] = EMPTY;
+                empty.add(cell);
+            }
+        }
+        length[snake] = 0;
+        alive[snake] = false;
+        dying[snake] = false;
+        living--;
+    }
+
+    private void spawnFood() {
+        while (food < foodCount && !empty.isEmpty()) {
+            int cell = empty.get(rng.nextInt(empty.size()));
+            empty.remove(cell);
+            owner[cell] = FOOD;
+            placedFood[placed++] = cell;
+            food++;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A client's copy of a GameServer room, kept up to date from the messages of
+ * ArenaProtocol. It only tracks bodies and food; the server decides every move.
+ */
+public class ArenaMirror {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    int gridSize;
+    int borderOffset;
+    int self; // The snake this client steers
+    long tick;
+    int food;
+
+    private int[][] bodies = new int[0][]; // Body rings, oldest (tail) to newest (head); grow in powers of two
+    private int[] head = new int[0];
+    private int[] length = new int[0];
+    private boolean[] foodCells = new boolean[0];
+
+    /**
+     * Applies one message, without its length prefix.
+     */
+    void apply(ByteBuffer message) {
+        byte type = message.get();
+        switch (type) {
+            case ArenaProtocol.WELCOME -> welcome(message);
+            case ArenaProtocol.TICK -> tick(message);
+            default -> throw new IllegalStateException("Unknown message type " + type);
+        }
+    }
+
+    int snakes() {
+        return length.length;
+    }
+
+    int length(int snake) {
+        return length[snake];
+    }
+
+    /**
+     * Returns the packed cell of a body segment, counted from the head (0) to the tail.
+     */
+    int segment(int snake, int i) {
+        int[] ring = bodies[snake];
+        return ring[(head[snake] - i) & (ring.length - 1)];
+    }
+
+    boolean food(int cell) {
+        return foodCells[cell];
+    }
+
+    private void welcome(ByteBuffer message) {
+        gridSize = ArenaProtocol.getVarInt(message);
+        borderOffset = ArenaProtocol.getVarInt(message);
+        int snakes = ArenaProtocol.getVarInt(message);
+        self = ArenaProtocol.getVarInt(message);
+        tick = ArenaProtocol.getVarLong(message);
+
+        bodies = new int[snakes][];
+        head = new int[snakes];
+        length = new int[snakes];
+        for (int s = 0; s < snakes; s++) {
+            int count = ArenaProtocol.getVarInt(message);
+            bodies[s] = new int[Math.max(4, Integer.highestOneBit(Math.max(count, 1) - 1) << 1)];
+            head[s] = -1;
+            for (int i = 0; i < count; i++) {
+                addHead(s, ArenaProtocol.getVarInt(message));
+            }
+        }
+        foodCells = new boolean[gridSize * gridSize];
+        food = ArenaProtocol.getVarInt(message);
+        for (int i = 0; i < food; i++) {
+            foodCells[ArenaProtocol.getVarInt(message)] = true;
+        }
+    }
+
+    private void tick(ByteBuffer message) {
+        tick = ArenaProtocol.getVarLong(message);
+        int events = ArenaProtocol.getVarInt(message);
+        for (int e = 0; e < events; e++) {
+            int event = ArenaProtocol.getVarInt(message);
+            int snake = event >>> 4;
+            int kind = event & 15;
+            if (kind < ArenaProtocol.DIE) {
+                int next = step(segment(snake, 0), DIRECTIONS[kind & 3]);
+                if (kind < ArenaProtocol.GROW) {
+                    length[snake]--; // The tail leaves; the ring slot is simply reused
+                } else {
+                    foodCells[next] = false;
+                    food--;
+                }
+                addHead(snake, next);
+            } else if (kind == ArenaProtocol.DIE) {
+                length[snake] = 0;
+            } else if (kind == ArenaProtocol.SPAWN) {
+                length[snake] = 0;
+                addHead(snake, ArenaProtocol.getVarInt(message));
+            } else if (kind == ArenaProtocol.FOOD) {
+                foodCells[ArenaProtocol.getVarInt(message)] = true;
+                food++;
+            } else {
+                throw new IllegalStateException("Unknown event kind " + kind);
+            }
+        }
+    }
+
+    private int step(int cell, Direction direction) {
+        return switch (direction) {
+            case UP -> cell - gridSize;
+            case DOWN -> cell + gridSize;
+            case LEFT -> cell - 1;
+            case RIGHT -> cell + 1;
+        };
+    }
+
+    private void addHead(int snake, int cell) {
+        int[] ring = bodies[snake];
+        if (length[snake] == ring.length) {
+            int[] grown = new int[ring.length * 2];
+            for (int i = 0; i < length[snake]; i++) {
+                grown[length[snake] - 1 - i] = segment(snake, i);
+            }
+            bodies[snake] = ring = grown;
+            head[snake] = length[snake] - 1;
+        }
+        head[snake] = (head[snake] + 1) & (ring.length - 1);
+        ring[head[snake]] = cell;
+        length[snake]++;
+    }
+}
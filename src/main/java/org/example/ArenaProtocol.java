@@ -0,0 +1,79 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol between GameServer and its clients.
+ * <p>
+ * A client sends one byte per key press: the Direction ordinal.
+ * <p>
+ * The server sends messages, each a varint length followed by that many bytes,
+ * the first of which is the message type:
+ * <pre>
+ *   WELCOME: varint gridSize, varint borderOffset, varint snakes, varint own snake, varlong tick,
+ *            per snake: varint length, then the cells from tail to head as varints,
+ *            varint food count, then the food cells as varints
+ *   TICK:    varlong tick, varint event count, then the events
+ * </pre>
+ * An event is a varint (snake &lt;&lt; 4 | kind), followed by a varint cell for SPAWN and FOOD.
+ * MOVE and GROW carry the direction the head went in the low two bits of the kind;
+ * MOVE also drops the tail, and GROW eats the food in the new head cell.
+ * Events are listed in the order they apply: spawns, then moves and deaths, then new food.
+ * A snake that moves and stays the same length costs one byte while there are fewer
+ * than eight snakes in a room, and two bytes below 1024.
+ */
+final class ArenaProtocol {
+    static final byte WELCOME = 1;
+    static final byte TICK = 2;
+
+    // Event kinds
+    static final int MOVE = 0; // Plus the direction ordinal
+    static final int GROW = 4; // Plus the direction ordinal
+    static final int DIE = 8;
+    static final int SPAWN = 9;
+    static final int FOOD = 10;
+
+    private ArenaProtocol() {
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        // Seven bits per byte, lowest first; the high bit marks that more bytes follow
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    /**
+     * Returns the length of a complete message at the buffer's position, without
+     * moving it, or -1 if the length prefix has not fully arrived.
+     * @return The number of bytes of the prefix plus the message.
+     */
+    static int framedLength(ByteBuffer buffer) {
+        long length = 0;
+        for (int i = 0; i < 5 && buffer.position() + i < buffer.limit(); i++) {
+            byte b = buffer.get(buffer.position() + i);
+            length |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return (int) length + i + 1;
+            }
+        }
+        return -1;
+    }
+}
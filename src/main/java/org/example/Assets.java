@@ -0,0 +1,34 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+
+/**
+ * Reads bundled resources into native memory for the libraries that need it there.
+ */
+final class Assets {
+    static final String FOOD_TEXTURE = "/textures/apple.png";
+    static final String FONT = "/fonts/Poppins-Regular.ttf";
+
+    private Assets() {
+    }
+
+    /**
+     * Reads a classpath resource into a native buffer of exactly its size.
+     * The caller frees the buffer with MemoryUtil.memFree.
+     */
+    static ByteBuffer readResource(String resourcePath) {
+        try (InputStream stream = Assets.class.getResourceAsStream(resourcePath)) {
+            if (stream == null) {
+                throw new RuntimeException("Resource not found: " + resourcePath);
+            }
+            byte[] bytes = stream.readAllBytes();
+            return memAlloc(bytes.length).put(bytes).flip();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read resource: " + resourcePath, e);
+        }
+    }
+}
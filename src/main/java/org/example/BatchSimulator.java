@@ -0,0 +1,114 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many independent headless games in parallel, for evaluating controllers.
+ * Game i is seeded with seed + i, so a batch gives the same results on any
+ * number of threads.
+ */
+public class BatchSimulator {
+    private final int gridSize;
+    private final int borderOffset;
+    private final Supplier<Controller> controllers; // One controller per game, so they may keep state
+    private final long maxTicks; // Games still running after this many ticks are stopped
+
+    public BatchSimulator(int gridSize, int borderOffset, Supplier<Controller> controllers) {
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.controllers = controllers;
+        int playArea = (gridSize - 2 * borderOffset) * (gridSize - 2 * borderOffset);
+        this.maxTicks = 100L * playArea; // Far more than any game that keeps eating needs
+    }
+
+    /**
+     * Plays the given number of games on a pool with the given parallelism.
+     */
+    Result run(int games, long seed, int threads) {
+        int[] scores = new int[games];
+        int[] lengths = new int[games];
+        long[] ticks = new long[games];
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, games).parallel().forEach(i -> {
+                GameEngine game = play(seed + i);
+                scores[i] = game.score;
+                lengths[i] = game.length();
+                ticks[i] = game.tick;
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(scores, lengths, Arrays.stream(ticks).sum(), System.nanoTime() - start);
+    }
+
+    GameEngine play(long seed) {
+        GameEngine game = new GameEngine(gridSize, borderOffset, new Rng(seed));
+        Controller controller = controllers.get();
+        while (game.state == GameState.PLAYING && game.tick < maxTicks) {
+            game.step(controller.next(game));
+        }
+        return game;
+    }
+
+    /**
+     * Outcome of a batch: final score and length of every game, in game order.
+     */
+    record Result(int[] scores, int[] lengths, long totalTicks, long nanos) {
+        double gamesPerSecond() {
+            return scores.length * 1e9 / nanos;
+        }
+
+        double averageScore() {
+            return Arrays.stream(scores).average().orElse(0);
+        }
+
+        /**
+         * Returns the final length at the given percentile, from 0 to 100.
+         */
+        int lengthPercentile(double percentile) {
+            int[] sorted = lengths.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games in %.2f s: %.0f games/s, %.1fM ticks/s, average score %.2f%n"
+                            + "length p50 %d, p90 %d, p99 %d, max %d",
+                    scores.length, nanos / 1e9, gamesPerSecond(), totalTicks * 1e3 / nanos, averageScore(),
+                    lengthPercentile(50), lengthPercentile(90), lengthPercentile(99), lengthPercentile(100));
+        }
+    }
+
+    /**
+     * Usage: BatchSimulator [games] [threads] [gridSize] [seed] [greedy|path]
+     * Runs the batch once on a single thread and once on all threads, to show how it scales.
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int gridSize = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        Supplier<Controller> controllers = switch (args.length > 4 ? args[4] : "greedy") {
+            case "greedy" -> GreedyController::new;
+            case "path" -> PathController::new;
+            default -> throw new IllegalArgumentException("Unknown controller: " + args[4]);
+        };
+
+        BatchSimulator simulator = new BatchSimulator(gridSize, 2, controllers);
+        simulator.run(Math.min(games, 1000), seed, threads); // Warm up
+
+        Result single = simulator.run(games, seed, 1);
+        System.out.println("1 thread: " + single);
+        Result parallel = simulator.run(games, seed, threads);
+        System.out.println(threads + " threads: " + parallel);
+        System.out.printf("Speedup %.2fx%n", parallel.gamesPerSecond() / single.gamesPerSecond());
+    }
+}
@@ -0,0 +1,305 @@
+package org.example;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.memAllocFloat;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Draws the play area border, the food and the snake from a single vertex buffer.
+ * The snake body is kept in the buffer between frames: each tick only the new
+ * head cells are written, and the tail is dropped by shrinking the drawn range.
+ * On large grids the body is instead drawn per chunk by ChunkMeshes.
+ * Obstacles inside the border are written to a buffer of their own once per
+ * level, one quad per horizontal run of walls.
+ */
+public class BoardBatch {
+    private static final int FLOATS_PER_VERTEX = 4; // x, y, u, v
+    private static final int FLOATS_PER_QUAD = 4 * FLOATS_PER_VERTEX;
+
+    // Quad slots at the start of the buffer
+    private static final int BORDER_SLOT = 0;
+    private static final int FOOD_SLOT = 1;
+    private static final int HEAD_SLIDE_SLOT = 2;
+    private static final int TAIL_SLIDE_SLOT = 3;
+    private static final int BODY_SLOT = 4;
+
+    private final int gridSize;
+    private final int capacity; // Body cells the ring can hold
+    private final FloatBuffer vertices;
+    private final int vbo;
+    private final ChunkMeshes chunkMeshes; // Body renderer for large grids, or null
+    private final TextureAtlas.Region foodRegion; // Where the food image is in the atlas
+
+    private Level syncedLevel; // Level whose obstacles are in wallVbo
+    private int wallVbo; // x, y of each obstacle quad corner; 0 until a level has obstacles
+    private int wallVertices;
+
+    // The body ring is stored twice in a row, so any run of up to capacity
+    // cells starting inside the first copy is contiguous
+    private int writeIndex; // Ring slot for the next head
+    private int count; // Body cells currently in the ring
+
+    private long syncedGame = -1;
+    private long syncedTick;
+    private int syncedFood = -1;
+
+    /**
+     * @param chunked Whether to draw the body per chunk instead of from the ring,
+     *                for grids too large to keep every body cell in one buffer.
+     */
+    public BoardBatch(int gridSize, int borderOffset, boolean chunked, TextureAtlas.Region foodRegion) {
+        this.gridSize = gridSize;
+        this.foodRegion = foodRegion;
+        this.capacity = chunked ? 0 : gridSize * gridSize;
+        this.chunkMeshes = chunked ? new ChunkMeshes(gridSize) : null;
+        vertices = memAllocFloat((BODY_SLOT + 2 * capacity) * FLOATS_PER_QUAD);
+
+        vbo = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        glBufferData(GL_ARRAY_BUFFER, (long) vertices.capacity() * Float.BYTES, GL_DYNAMIC_DRAW);
+
+        // The border never changes; its quad is drawn as a line loop
+        putQuad(BORDER_SLOT, borderOffset, borderOffset, gridSize - 2 * borderOffset);
+        upload(BORDER_SLOT, 1);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Brings the buffer up to date with the board and draws it.
+     * @param alpha Progress from the last tick towards the next one, used to slide the head and tail.
+     */
+    void render(BoardView board, float alpha, int atlasTexture, Camera camera) {
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        sync(board);
+        updateSlides(board, alpha);
+
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+        glVertexPointer(2, GL_FLOAT, FLOATS_PER_VERTEX * Float.BYTES, 0L);
+        glTexCoordPointer(2, GL_FLOAT, FLOATS_PER_VERTEX * Float.BYTES, 2L * Float.BYTES);
+
+        glColor3f(0.75f, 0.75f, 0.75f); // Light grey
+        glDrawArrays(GL_LINE_LOOP, BORDER_SLOT * 4, 4);
+        if (board.level() != syncedLevel) {
+            syncWalls(board.level());
+        }
+        if (wallVertices > 0) {
+            glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+            glBindBuffer(GL_ARRAY_BUFFER, wallVbo);
+            glVertexPointer(2, GL_FLOAT, 0, 0L);
+            glDrawArrays(GL_QUADS, 0, wallVertices);
+            glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glVertexPointer(2, GL_FLOAT, FLOATS_PER_VERTEX * Float.BYTES, 0L);
+        }
+
+        // The newest body cell is the head and the oldest the tail, which the slide quads draw instead
+        boolean tailSliding = board.lastTail() != -1 && count > 1;
+        glColor3f(0.1f, 0.7f, 0.1f); // Soft green
+        if (chunkMeshes != null) {
+            glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+            chunkMeshes.render(board, camera);
+            glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            glVertexPointer(2, GL_FLOAT, FLOATS_PER_VERTEX * Float.BYTES, 0L);
+        } else {
+            int start = writeIndex - count + (tailSliding ? 1 : 0);
+            if (start < 0) {
+                start += capacity;
+            }
+            glDrawArrays(GL_QUADS, (BODY_SLOT + start) * 4, (count - (tailSliding ? 2 : 1)) * 4);
+        }
+        glDrawArrays(GL_QUADS, HEAD_SLIDE_SLOT * 4, tailSliding ? 8 : 4);
+
+        if (board.food() != -1) {
+            glEnable(GL_TEXTURE_2D);
+            glBindTexture(GL_TEXTURE_2D, atlasTexture);
+            glEnable(GL_BLEND);
+            glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+            glColor4f(1.0f, 1.0f, 1.0f, 1.0f); // Ensure full color and alpha
+            glDrawArrays(GL_QUADS, FOOD_SLOT * 4, 4);
+            glDisable(GL_TEXTURE_2D);
+            glDisable(GL_BLEND);
+        }
+
+        glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    private void sync(BoardView board) {
+        if (chunkMeshes == null) {
+            syncBody(board);
+        }
+        count = board.length();
+
+        int food = board.food();
+        if (food != -1 && food != syncedFood) {
+            putQuad(FOOD_SLOT, food % gridSize, food / gridSize, 1, foodRegion);
+            upload(FOOD_SLOT, 1);
+        }
+        syncedFood = food;
+    }
+
+    /**
+     * Writes the obstacles of a level into the wall buffer; the border is drawn as a line instead.
+     */
+    private void syncWalls(Level level) {
+        syncedLevel = level;
+        wallVertices = 0;
+        if (!level.hasObstacles()) {
+            return;
+        }
+        int low = level.borderOffset();
+        int high = gridSize - low;
+        int runs = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            // The first pass counts the runs, the second writes them
+            FloatBuffer quads = pass == 0 ? null : memAllocFloat(runs * 8);
+            for (int y = low; y < high; y++) {
+                for (int x = low; x < high; x++) {
+                    if (!level.wall(y * gridSize + x)) {
+                        continue;
+                    }
+                    int start = x;
+                    while (x + 1 < high && level.wall(y * gridSize + x + 1)) {
+                        x++;
+                    }
+                    if (quads == null) {
+                        runs++;
+                    } else {
+                        quads.put(start).put(y).put(x + 1).put(y).put(x + 1).put(y + 1).put(start).put(y + 1);
+                    }
+                }
+            }
+            if (quads != null) {
+                if (wallVbo == 0) {
+                    wallVbo = glGenBuffers();
+                }
+                glBindBuffer(GL_ARRAY_BUFFER, wallVbo);
+                glBufferData(GL_ARRAY_BUFFER, quads.flip(), GL_STATIC_DRAW);
+                glBindBuffer(GL_ARRAY_BUFFER, vbo);
+                memFree(quads);
+            }
+        }
+        wallVertices = runs * 4;
+    }
+
+    private void syncBody(BoardView board) {
+        int length = board.length();
+        long newHeads = board.tick() - syncedTick;
+        if (board.gameId() != syncedGame || newHeads < 0 || newHeads >= length) {
+            // A new game, or too far behind to patch: rewrite the whole body
+            writeIndex = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                putHead(board.segment(i), false);
+            }
+            upload(BODY_SLOT, length);
+            upload(BODY_SLOT + capacity, length);
+        } else {
+            // Every tick since the last sync added exactly one head, oldest first
+            for (int i = (int) newHeads - 1; i >= 0; i--) {
+                putHead(board.segment(i), true);
+            }
+        }
+        syncedGame = board.gameId();
+        syncedTick = board.tick();
+    }
+
+    private void putHead(int cell, boolean upload) {
+        int x = cell % gridSize;
+        int y = cell / gridSize;
+        putQuad(BODY_SLOT + writeIndex, x, y, 1);
+        putQuad(BODY_SLOT + capacity + writeIndex, x, y, 1);
+        if (upload) {
+            upload(BODY_SLOT + writeIndex, 1);
+            upload(BODY_SLOT + capacity + writeIndex, 1);
+        }
+        writeIndex = writeIndex + 1 == capacity ? 0 : writeIndex + 1;
+    }
+
+    private void updateSlides(BoardView board, float alpha) {
+        // The head slides out of the cell it left
+        int head = board.segment(0);
+        int previousHead = board.previousHead();
+        if (previousHead == -1) {
+            putQuad(HEAD_SLIDE_SLOT, head % gridSize, head / gridSize, 1);
+        } else {
+            putQuad(HEAD_SLIDE_SLOT, lerp(previousHead % gridSize, head % gridSize, alpha),
+                    lerp(previousHead / gridSize, head / gridSize, alpha), 1);
+        }
+
+        // The tail slides into its cell from the one it vacated
+        int lastTail = board.lastTail();
+        if (lastTail != -1 && board.length() > 1) {
+            int tail = board.segment(board.length() - 1);
+            putTailSlide(lastTail % gridSize, tail % gridSize, lerp(lastTail % gridSize, tail % gridSize, alpha),
+                    lastTail / gridSize, tail / gridSize, lerp(lastTail / gridSize, tail / gridSize, alpha));
+        }
+        upload(HEAD_SLIDE_SLOT, 2);
+    }
+
+    /**
+     * Writes the tail slide quad, from the sliding tail end at x, y to the far edge of the
+     * tail cell. The chunk meshes draw the tail cell themselves, so there it stops at the near edge.
+     */
+    private void putTailSlide(int lastTailX, int tailX, float x, int lastTailY, int tailY, float y) {
+        boolean withCell = chunkMeshes == null;
+        putRect(TAIL_SLIDE_SLOT, span(lastTailX, tailX, x, withCell, true), span(lastTailY, tailY, y, withCell, true),
+                span(lastTailX, tailX, x, withCell, false), span(lastTailY, tailY, y, withCell, false),
+                0, 0, 1, 1);
+    }
+
+    /**
+     * Returns the low (or high) edge of the tail slide along one axis.
+     */
+    private static float span(int lastTail, int tail, float slide, boolean withCell, boolean low) {
+        if (tail > lastTail) {
+            return low ? slide : (withCell ? tail + 1 : tail);
+        }
+        if (tail < lastTail) {
+            return low ? (withCell ? tail : tail + 1) : slide + 1;
+        }
+        return low ? tail : tail + 1;
+    }
+
+    private void putQuad(int slot, float x, float y, float size) {
+        putRect(slot, x, y, x + size, y + size, 0, 0, 1, 1);
+    }
+
+    private void putQuad(int slot, float x, float y, float size, TextureAtlas.Region region) {
+        putRect(slot, x, y, x + size, y + size, region.u0(), region.v0(), region.u1(), region.v1());
+    }
+
+    private void putRect(int slot, float x0, float y0, float x1, float y1, float u0, float v0, float u1, float v1) {
+        int i = slot * FLOATS_PER_QUAD;
+        vertices.put(i, x0).put(i + 1, y0).put(i + 2, u0).put(i + 3, v0);
+        vertices.put(i + 4, x1).put(i + 5, y0).put(i + 6, u1).put(i + 7, v0);
+        vertices.put(i + 8, x1).put(i + 9, y1).put(i + 10, u1).put(i + 11, v1);
+        vertices.put(i + 12, x0).put(i + 13, y1).put(i + 14, u0).put(i + 15, v1);
+    }
+
+    private void upload(int slot, int quads) {
+        vertices.limit((slot + quads) * FLOATS_PER_QUAD).position(slot * FLOATS_PER_QUAD);
+        glBufferSubData(GL_ARRAY_BUFFER, (long) slot * FLOATS_PER_QUAD * Float.BYTES, vertices);
+        vertices.clear();
+    }
+
+    private static float lerp(int from, int to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    void cleanup() {
+        if (chunkMeshes != null) {
+            chunkMeshes.cleanup();
+        }
+        glDeleteBuffers(vbo);
+        if (wallVbo != 0) {
+            glDeleteBuffers(wallVbo);
+        }
+        memFree(vertices);
+    }
+}
@@ -0,0 +1,165 @@
+package org.example;
+
+/**
+ * A copy of the board at one tick, written by the simulation thread and read by
+ * the render thread through a TripleBuffer. A snapshot is brought up to date
+ * from the engine incrementally: only the heads added and tails dropped since
+ * the tick it last held are copied, so refreshing it costs about as much as the
+ * ticks it missed rather than the length of the snake.
+ */
+public class BoardSnapshot implements BoardView {
+    private final int gridSize;
+    private final int borderOffset;
+    private final long[] occupied; // One bit per cell covered by the body
+    private final ChunkGrid chunks; // Chunks changed since the renderer last cleaned them in this snapshot
+
+    // Body ring, oldest (tail) to newest (head); grows with the snake in powers of two
+    private int[] ring = new int[64];
+    private int head; // Index of the head in ring
+    private int length;
+
+    private long gameId = -1;
+    private long tick;
+    private int score;
+    private int lastTail;
+    private int food;
+    private Level level;
+    GameState state;
+    long tickTime; // System.nanoTime() when the tick ran
+    long turnPressTime; // Press time of the latest turn applied since this buffer was last published, or 0
+
+    public BoardSnapshot(int gridSize, int borderOffset) {
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.occupied = new long[(gridSize * gridSize + 63) >>> 6];
+        this.chunks = new ChunkGrid(gridSize);
+    }
+
+    /**
+     * Brings the snapshot up to the engine's current tick. The chunk marks are not
+     * copied; the simulation adds those, since they depend on what the renderer saw.
+     */
+    void copyFrom(GameEngine engine, long tickTime) {
+        long newHeads = engine.tick() - tick;
+        int newLength = engine.length();
+        // The tick that ends a game moves nothing, so that one is copied in full
+        if (engine.gameId() != gameId || engine.state != GameState.PLAYING || newHeads < 0 || newHeads >= newLength) {
+            copyBody(engine);
+        } else {
+            // Drop the tails that left before adding heads, which may enter those cells
+            int dropped = length + (int) newHeads - newLength;
+            for (int i = 0; i < dropped; i++) {
+                release(segment(length - 1));
+                length--;
+            }
+            ensureCapacity(newLength);
+            for (int i = (int) newHeads - 1; i >= 0; i--) {
+                addHead(engine.segment(i));
+            }
+        }
+
+        gameId = engine.gameId();
+        tick = engine.tick();
+        score = engine.score();
+        lastTail = engine.lastTail();
+        food = engine.food();
+        level = engine.level();
+        state = engine.state;
+        this.tickTime = tickTime;
+    }
+
+    private void copyBody(GameEngine engine) {
+        for (int i = 0; i < length; i++) {
+            release(segment(i));
+        }
+        length = 0;
+        head = -1;
+        ensureCapacity(engine.length());
+        for (int i = engine.length() - 1; i >= 0; i--) {
+            addHead(engine.segment(i));
+        }
+    }
+
+    private void addHead(int cell) {
+        head = (head + 1) & (ring.length - 1);
+        ring[head] = cell;
+        length++;
+        occupied[cell >>> 6] |= 1L << cell;
+    }
+
+    private void release(int cell) {
+        occupied[cell >>> 6] &= ~(1L << cell);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ring.length) {
+            return;
+        }
+        int[] grown = new int[Integer.highestOneBit(capacity - 1) << 1];
+        for (int i = 0; i < length; i++) {
+            grown[length - 1 - i] = segment(i);
+        }
+        ring = grown;
+        head = length - 1;
+    }
+
+    @Override
+    public int gridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public int borderOffset() {
+        return borderOffset;
+    }
+
+    @Override
+    public Level level() {
+        return level;
+    }
+
+    @Override
+    public long gameId() {
+        return gameId;
+    }
+
+    @Override
+    public long tick() {
+        return tick;
+    }
+
+    @Override
+    public int score() {
+        return score;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int segment(int i) {
+        return ring[(head - i) & (ring.length - 1)];
+    }
+
+    @Override
+    public int lastTail() {
+        return lastTail;
+    }
+
+    @Override
+    public int food() {
+        return food;
+    }
+
+    @Override
+    public boolean occupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public ChunkGrid chunks() {
+        return chunks;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+/**
+ * Read-only view of a board that a renderer draws from.
+ * Cells are packed as y * gridSize() + x.
+ */
+public interface BoardView {
+    int gridSize();
+
+    int borderOffset();
+
+    /**
+     * Returns the walls of the board; they stay the same for a whole game.
+     */
+    Level level();
+
+    /**
+     * Identifies the game being shown; it changes whenever a new game starts
+     * or the game is restored to an earlier state.
+     */
+    long gameId();
+
+    /**
+     * Number of ticks played in the current game.
+     */
+    long tick();
+
+    int score();
+
+    int length();
+
+    /**
+     * Returns the cell of a body segment.
+     * @param i Segment number, counted from the head (0) to the tail (length() - 1).
+     */
+    int segment(int i);
+
+    /**
+     * Returns the cell the tail left on the last tick, or -1 if the snake grew instead.
+     */
+    int lastTail();
+
+    /**
+     * Returns the food cell, or -1 when there is no food on the board.
+     */
+    int food();
+
+    /**
+     * Checks whether a body segment covers the given cell.
+     */
+    boolean occupied(int cell);
+
+    /**
+     * Returns the chunks of the grid, marked dirty where the body changed since a renderer last cleaned them.
+     */
+    ChunkGrid chunks();
+
+    /**
+     * Returns the cell the head occupied before the last tick, or -1 if it is not known.
+     */
+    default int previousHead() {
+        return length() > 1 ? segment(1) : lastTail();
+    }
+}
@@ -0,0 +1,260 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Many independent games stored as flat primitive arrays, one slot per game,
+ * and stepped together. Follows exactly the rules of GameEngine: with the same
+ * seed and the same inputs, game g plays out the same as a GameEngine would.
+ * <p>
+ * A tick runs in two passes. The first turns and advances every head and checks
+ * the walls with plain arithmetic over the per-game arrays, which the JIT can
+ * vectorize. The second does the scattered work of collisions, body rings and
+ * food, one game after another.
+ */
+public class BulkEngine {
+    // Values of the state array
+    static final byte PLAYING = 0;
+    static final byte GAME_OVER = 1;
+    static final byte WON = 2;
+
+    static final byte NO_INPUT = -1; // Input for a game that keeps going straight
+
+    private final int games;
+    private final int gridSize;
+    private final int borderOffset;
+    private final int cells; // Grid cells, and the size of each game's slice of the per-cell arrays
+    private final int words; // Longs in each game's slice of the occupancy bitset
+
+    // One slot per game
+    final int[] headX;
+    final int[] headY;
+    final byte[] direction; // Direction ordinal
+    final int[] length;
+    final int[] score;
+    final byte[] state;
+    final int[] food; // Packed as y * gridSize + x, or -1 when there is none
+    final long[] tick;
+    final long[] rng; // SplitMix64 state
+    private final int[] head; // Index of the head in the game's body ring
+    private final int[] freeCount;
+
+    // One slice per game
+    private final int[] body; // Body ring, oldest (tail) to newest (head), like Snake
+    private final long[] occupied; // One bit per cell covered by the body
+    private final int[] free; // Free cells in the first freeCount slots, like FreeCells
+    private final int[] freeIndex; // Index of each cell in free, or -1 when the cell is not free
+
+    // Results of the first pass
+    private final int[] nextX;
+    private final int[] nextY;
+    private final boolean[] hitWall;
+
+    public BulkEngine(int games, int gridSize, int borderOffset) {
+        this.games = games;
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.cells = slice(1, gridSize * (long) gridSize, gridSize);
+        this.words = (cells + 63) >>> 6;
+        int cellSlots = slice(games, cells, gridSize); // Every game's slice must be indexable by an int
+        slice(games, words, gridSize);
+
+        headX = new int[games];
+        headY = new int[games];
+        direction = new byte[games];
+        length = new int[games];
+        score = new int[games];
+        state = new byte[games];
+        food = new int[games];
+        tick = new long[games];
+        rng = new long[games];
+        head = new int[games];
+        freeCount = new int[games];
+
+        body = new int[cellSlots];
+        occupied = new long[games * words];
+        free = new int[cellSlots];
+        freeIndex = new int[cellSlots];
+
+        nextX = new int[games];
+        nextY = new int[games];
+        hitWall = new boolean[games];
+    }
+
+    /**
+     * Returns the length of an array holding a slice of the given size for every game.
+     * @throws IllegalArgumentException If it does not fit in an int.
+     */
+    private static int slice(int games, long size, int gridSize) {
+        if (size > Integer.MAX_VALUE || games * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(games + " games on a " + gridSize + "x" + gridSize
+                    + " grid need more slots than an array can hold");
+        }
+        return (int) (games * size);
+    }
+
+    /**
+     * Starts a new game in the given slot, as GameEngine.reset() does.
+     */
+    void reset(int game, long seed) {
+        rng[game] = seed;
+        score[game] = 0;
+        tick[game] = 0;
+        state[game] = PLAYING;
+        direction[game] = (byte) Direction.UP.ordinal();
+
+        Arrays.fill(occupied, game * words, (game + 1) * words, 0);
+        Arrays.fill(freeIndex, game * cells, (game + 1) * cells, -1);
+        freeCount[game] = 0;
+        for (int y = borderOffset; y < gridSize - borderOffset; y++) {
+            for (int x = borderOffset; x < gridSize - borderOffset; x++) {
+                addFree(game, y * gridSize + x);
+            }
+        }
+
+        int start = (gridSize / 2) * gridSize + gridSize / 2;
+        headX[game] = gridSize / 2;
+        headY[game] = gridSize / 2;
+        head[game] = 0;
+        length[game] = 1;
+        body[game * cells] = start;
+        occupy(game, start);
+        removeFree(game, start);
+        spawnFood(game);
+    }
+
+    /**
+     * Advances every game still playing by one tick.
+     * @param inputs Direction ordinal requested for each game, or NO_INPUT to keep going straight.
+     *               A request to reverse into the body is ignored.
+     */
+    void step(byte[] inputs) {
+        int low = borderOffset;
+        int high = gridSize - borderOffset;
+
+        // Turn and advance the heads; ordinals pair up opposites as 0-1 and 2-3
+        for (int g = 0; g < games; g++) {
+            int current = direction[g];
+            int input = inputs[g];
+            int d = input >= 0 && input != (current ^ 1) && state[g] == PLAYING ? input : current;
+            direction[g] = (byte) d;
+            int sign = (d & 1) * 2 - 1; // UP and LEFT are -1
+            int horizontal = d >> 1; // LEFT and RIGHT
+            int x = headX[g] + horizontal * sign;
+            int y = headY[g] + (1 - horizontal) * sign;
+            nextX[g] = x;
+            nextY[g] = y;
+            hitWall[g] = x < low | x >= high | y < low | y >= high;
+        }
+
+        for (int g = 0; g < games; g++) {
+            if (state[g] != PLAYING) {
+                continue;
+            }
+            tick[g]++;
+            if (hitWall[g]) {
+                state[g] = GAME_OVER;
+                continue;
+            }
+            int x = nextX[g];
+            int y = nextY[g];
+            int cell = y * gridSize + x;
+            boolean eating = cell == food[g];
+            if (collides(g, cell, eating)) {
+                state[g] = GAME_OVER;
+                continue;
+            }
+
+            if (eating) {
+                score[g]++;
+                addHead(g, cell);
+                removeFree(g, cell);
+                spawnFood(g);
+            } else {
+                // Free the tail first so a head moving into the old tail cell stays marked
+                int tail = body[g * cells + tailIndex(g)];
+                release(g, tail);
+                length[g]--;
+                addHead(g, cell);
+                addFree(g, tail);
+                removeFree(g, cell);
+            }
+            headX[g] = x;
+            headY[g] = y;
+        }
+    }
+
+    int games() {
+        return games;
+    }
+
+    /**
+     * Returns the packed cell of a body segment, counted from the head (0) to the tail.
+     */
+    int segment(int game, int i) {
+        int index = head[game] - i;
+        return body[game * cells + (index < 0 ? index + cells : index)];
+    }
+
+    private boolean collides(int game, int cell, boolean growing) {
+        if ((occupied[game * words + (cell >>> 6)] & (1L << cell)) == 0) {
+            return false;
+        }
+        return growing || body[game * cells + tailIndex(game)] != cell;
+    }
+
+    private void addHead(int game, int cell) {
+        int index = head[game] + 1 == cells ? 0 : head[game] + 1;
+        head[game] = index;
+        body[game * cells + index] = cell;
+        length[game]++;
+        occupy(game, cell);
+    }
+
+    private int tailIndex(int game) {
+        int index = head[game] - length[game] + 1;
+        return index < 0 ? index + cells : index;
+    }
+
+    private void spawnFood(int game) {
+        int count = freeCount[game];
+        if (count == 0) {
+            // The snake fills the whole play area
+            food[game] = -1;
+            state[game] = WON;
+            return;
+        }
+        long random = Rng.mix(rng[game] += Rng.GAMMA);
+        food[game] = free[game * cells + Rng.bounded(random, count)];
+    }
+
+    private void occupy(int game, int cell) {
+        occupied[game * words + (cell >>> 6)] |= 1L << cell;
+    }
+
+    private void release(int game, int cell) {
+        occupied[game * words + (cell >>> 6)] &= ~(1L << cell);
+    }
+
+    private void addFree(int game, int cell) {
+        int base = game * cells;
+        if (freeIndex[base + cell] != -1) {
+            return;
+        }
+        int size = freeCount[game]++;
+        free[base + size] = cell;
+        freeIndex[base + cell] = size;
+    }
+
+    private void removeFree(int game, int cell) {
+        int base = game * cells;
+        int index = freeIndex[base + cell];
+        if (index == -1) {
+            return;
+        }
+        int last = free[base + --freeCount[game]];
+        free[base + index] = last;
+        freeIndex[base + last] = index;
+        freeIndex[base + cell] = -1;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+/**
+ * The square window of cells shown on screen. When the grid is larger than
+ * the view, the camera follows the head and stops at the edges of the grid.
+ */
+public class Camera {
+    private final int viewSize; // Cells across the screen
+    private float left;
+    private float top;
+
+    public Camera(int viewSize) {
+        this.viewSize = viewSize;
+    }
+
+    /**
+     * Centers the view on the head, at its interpolated position between the last tick and the next.
+     */
+    void follow(BoardView board, float alpha) {
+        int gridSize = board.gridSize();
+        if (gridSize <= viewSize) {
+            left = 0;
+            top = 0;
+            return;
+        }
+        int head = board.segment(0);
+        float x = head % gridSize;
+        float y = head / gridSize;
+        int previousHead = board.previousHead();
+        if (previousHead != -1) {
+            x = previousHead % gridSize + (x - previousHead % gridSize) * alpha;
+            y = previousHead / gridSize + (y - previousHead / gridSize) * alpha;
+        }
+        left = clamp(x + 0.5f - viewSize / 2.0f, gridSize - viewSize);
+        top = clamp(y + 0.5f - viewSize / 2.0f, gridSize - viewSize);
+    }
+
+    /**
+     * Returns the number of cells shown across the screen for the given board.
+     */
+    int cellsShown(BoardView board) {
+        return Math.min(viewSize, board.gridSize());
+    }
+
+    float left() {
+        return left;
+    }
+
+    float top() {
+        return top;
+    }
+
+    private static float clamp(float value, float max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
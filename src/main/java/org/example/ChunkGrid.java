@@ -0,0 +1,94 @@
+package org.example;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits the grid into square chunks and remembers which chunks changed.
+ * The engine marks the chunks the head and tail touch on every tick; a
+ * renderer rebuilds a chunk only while it is dirty and clears the mark.
+ */
+public final class ChunkGrid {
+    static final int CHUNK_SIZE = 32; // Cells per chunk side
+
+    private final int gridSize;
+    private final int chunksPerSide;
+    private final long[] dirty; // One bit per chunk
+
+    public ChunkGrid(int gridSize) {
+        this.gridSize = gridSize;
+        this.chunksPerSide = (gridSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.dirty = new long[(chunksPerSide * chunksPerSide + 63) >>> 6];
+        markAll();
+    }
+
+    /**
+     * Marks the chunk holding the given cell, packed as y * gridSize + x.
+     */
+    void mark(int cell) {
+        int chunk = chunkOf(cell % gridSize, cell / gridSize);
+        dirty[chunk >>> 6] |= 1L << chunk;
+    }
+
+    void markAll() {
+        Arrays.fill(dirty, -1L);
+    }
+
+    /**
+     * Marks every chunk that is dirty in the other grid, which must be the same size.
+     */
+    void markAll(ChunkGrid other) {
+        for (int i = 0; i < dirty.length; i++) {
+            dirty[i] |= other.dirty[i];
+        }
+    }
+
+    void cleanAll() {
+        Arrays.fill(dirty, 0);
+    }
+
+    boolean isDirty(int chunk) {
+        return (dirty[chunk >>> 6] & (1L << chunk)) != 0;
+    }
+
+    void clean(int chunk) {
+        dirty[chunk >>> 6] &= ~(1L << chunk);
+    }
+
+    /**
+     * Writes four x, y vertices for every body cell in the chunk except the head,
+     * which is drawn separately, and returns the number of quads written.
+     * @param quads Receives the vertices; room for CHUNK_SIZE * CHUNK_SIZE quads is always enough.
+     */
+    int writeBody(BoardView board, int chunk, FloatBuffer quads) {
+        int head = board.segment(0);
+        int left = chunk % chunksPerSide * CHUNK_SIZE;
+        int top = chunk / chunksPerSide * CHUNK_SIZE;
+        int right = Math.min(left + CHUNK_SIZE, gridSize);
+        int bottom = Math.min(top + CHUNK_SIZE, gridSize);
+
+        int count = 0;
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                int cell = y * gridSize + x;
+                if (cell != head && board.occupied(cell)) {
+                    quads.put(x).put(y).put(x + 1).put(y).put(x + 1).put(y + 1).put(x).put(y + 1);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    int chunkOf(int x, int y) {
+        return (y / CHUNK_SIZE) * chunksPerSide + x / CHUNK_SIZE;
+    }
+
+    int chunksPerSide() {
+        return chunksPerSide;
+    }
+
+    int gridSize() {
+        return gridSize;
+    }
+}
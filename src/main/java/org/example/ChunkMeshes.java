@@ -0,0 +1,103 @@
+package org.example;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.memAllocFloat;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Draws the snake body on large grids one chunk at a time.
+ * Each visible chunk keeps its own vertex buffer, rebuilt only while the
+ * engine has the chunk marked dirty; chunks that scroll out of view are freed.
+ */
+public class ChunkMeshes {
+    private static final int FLOATS_PER_QUAD = 8; // Four x, y vertices
+
+    private final int[] buffers; // Vertex buffer of each chunk, or 0 when it has none
+    private final int[] quads; // Quads in each chunk's buffer
+    private final FloatBuffer scratch = memAllocFloat(ChunkGrid.CHUNK_SIZE * ChunkGrid.CHUNK_SIZE * FLOATS_PER_QUAD);
+
+    private int[] live = new int[16]; // Chunks that currently own a buffer
+    private int liveCount;
+    private final boolean[] visible;
+
+    public ChunkMeshes(int gridSize) {
+        int chunksPerSide = (gridSize + ChunkGrid.CHUNK_SIZE - 1) / ChunkGrid.CHUNK_SIZE;
+        int count = chunksPerSide * chunksPerSide;
+        buffers = new int[count];
+        quads = new int[count];
+        visible = new boolean[count];
+    }
+
+    /**
+     * Draws the body cells of every chunk overlapping the camera, except the head.
+     * Expects the vertex array client state to be enabled.
+     */
+    void render(BoardView board, Camera camera) {
+        ChunkGrid chunks = board.chunks();
+        int shown = camera.cellsShown(board);
+        int size = ChunkGrid.CHUNK_SIZE;
+        int firstX = (int) camera.left() / size;
+        int firstY = (int) camera.top() / size;
+        int lastX = Math.min((int) (camera.left() + shown) / size, chunks.chunksPerSide() - 1);
+        int lastY = Math.min((int) (camera.top() + shown) / size, chunks.chunksPerSide() - 1);
+
+        for (int cy = firstY; cy <= lastY; cy++) {
+            for (int cx = firstX; cx <= lastX; cx++) {
+                int chunk = cy * chunks.chunksPerSide() + cx;
+                visible[chunk] = true;
+                if (buffers[chunk] == 0) {
+                    buffers[chunk] = glGenBuffers();
+                    addLive(chunk);
+                    chunks.mark(cy * size * chunks.gridSize() + cx * size);
+                }
+                glBindBuffer(GL_ARRAY_BUFFER, buffers[chunk]);
+                if (chunks.isDirty(chunk)) {
+                    scratch.clear();
+                    quads[chunk] = chunks.writeBody(board, chunk, scratch);
+                    glBufferData(GL_ARRAY_BUFFER, scratch.flip(), GL_DYNAMIC_DRAW);
+                    chunks.clean(chunk);
+                }
+                if (quads[chunk] > 0) {
+                    glVertexPointer(2, GL_FLOAT, 2 * Float.BYTES, 0L);
+                    glDrawArrays(GL_QUADS, 0, quads[chunk] * 4);
+                }
+            }
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        evictHidden();
+    }
+
+    private void addLive(int chunk) {
+        if (liveCount == live.length) {
+            live = Arrays.copyOf(live, live.length * 2);
+        }
+        live[liveCount++] = chunk;
+    }
+
+    private void evictHidden() {
+        int kept = 0;
+        for (int i = 0; i < liveCount; i++) {
+            int chunk = live[i];
+            if (visible[chunk]) {
+                visible[chunk] = false;
+                live[kept++] = chunk;
+            } else {
+                glDeleteBuffers(buffers[chunk]);
+                buffers[chunk] = 0;
+                quads[chunk] = 0;
+            }
+        }
+        liveCount = kept;
+    }
+
+    void cleanup() {
+        for (int i = 0; i < liveCount; i++) {
+            glDeleteBuffers(buffers[live[i]]);
+        }
+        memFree(scratch);
+    }
+}
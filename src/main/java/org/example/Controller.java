@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Picks the direction for a snake on every tick, in place of a player.
+ */
+public interface Controller {
+    /**
+     * @return The direction to request for the next tick, or null to keep going straight.
+     */
+    Direction next(GameEngine game);
+}
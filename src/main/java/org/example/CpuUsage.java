@@ -0,0 +1,37 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures how much CPU time the current thread uses over a stretch of wall time.
+ * Enabled with -Dsnake.cpuUsage=true; otherwise every call is a no-op.
+ */
+public class CpuUsage {
+    private static final boolean ENABLED = Boolean.getBoolean("snake.cpuUsage");
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private long cpuStart;
+    private long wallStart;
+
+    void start() {
+        if (!ENABLED) {
+            return;
+        }
+        cpuStart = THREADS.getCurrentThreadCpuTime();
+        wallStart = System.nanoTime();
+    }
+
+    /**
+     * Prints the CPU time used since start() as a share of the elapsed wall time.
+     */
+    void report(String label) {
+        if (!ENABLED) {
+            return;
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime() - cpuStart;
+        long wall = System.nanoTime() - wallStart;
+        System.out.printf("%s: %.1f ms CPU over %.1f ms (%.2f%%)%n",
+                label, cpu / 1e6, wall / 1e6, wall == 0 ? 0.0 : 100.0 * cpu / wall);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example;
+
+/**
+ * How fast the snake moves.
+ */
+public enum Difficulty {
+    EASY(0.1),
+    MEDIUM(0.07),
+    HARD(0.05);
+
+    final double secondsPerTick;
+
+    Difficulty(double secondsPerTick) {
+        this.secondsPerTick = secondsPerTick;
+    }
+}
@@ -0,0 +1,221 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Steps from every free cell to the food, counted around the walls and the body,
+ * kept up to date as the snake moves. A move frees the tail cell, which can only
+ * shorten paths, and fills the new head cell, which can only lengthen the paths
+ * that ran through it; both are repaired around that cell. Only new food, or
+ * anything else update() cannot follow, costs a search of the whole grid.
+ */
+public class DistanceField {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Level level;
+    private final int gridSize;
+    private final long[] walls; // The level's walls
+    private final long[] blocked; // Walls and body
+    private final int[] distance; // Steps to the food, or UNREACHABLE
+
+    // Work arrays, one slot per cell
+    private final int[] queue;
+    private final int[] invalid; // Cells whose distance a new obstacle took away
+    private final int[] oldDistance; // Their distance before that
+    private final long[] seeds; // Distance << 32 | cell to restart the search from
+
+    // What the field was last brought up to
+    private long gameId = -1;
+    private long tick;
+    private int food = -1;
+
+    public DistanceField(Level level) {
+        this.level = level;
+        this.gridSize = level.gridSize();
+        int cells = gridSize * gridSize;
+        walls = level.walls(); // The level walls off its border, so every open cell has four neighbours
+        blocked = new long[walls.length];
+        distance = new int[cells];
+        queue = new int[cells];
+        invalid = new int[cells];
+        oldDistance = new int[cells];
+        seeds = new long[cells];
+    }
+
+    Level level() {
+        return level;
+    }
+
+    /**
+     * Returns the number of steps from the cell to the food, or UNREACHABLE.
+     */
+    int distance(int cell) {
+        return distance[cell];
+    }
+
+    /**
+     * Brings the field up to the board: incrementally after one tick without
+     * eating, otherwise with a full search.
+     */
+    void update(BoardView board) {
+        if (board.gameId() == gameId && board.tick() == tick) {
+            return;
+        }
+        int tail = board.lastTail();
+        if (board.gameId() != gameId || board.tick() != tick + 1 || board.food() != food || tail == -1) {
+            rebuild(board);
+            return;
+        }
+        int head = board.segment(0);
+        if (head != tail && board.occupied(tail)) {
+            rebuild(board); // The tick did not move the snake, as when it ends the game
+            return;
+        }
+        if (head != tail) { // A head moving into the old tail cell leaves it covered
+            free(tail);
+            block(head);
+        }
+        tick = board.tick();
+    }
+
+    /**
+     * Searches the whole grid from the food.
+     */
+    void rebuild(BoardView board) {
+        System.arraycopy(walls, 0, blocked, 0, walls.length);
+        for (int i = 0; i < board.length(); i++) {
+            int cell = board.segment(i);
+            blocked[cell >>> 6] |= 1L << cell;
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        gameId = board.gameId();
+        tick = board.tick();
+        food = board.food();
+        if (food == -1) {
+            return;
+        }
+        distance[food] = 0;
+        queue[0] = food;
+        search(1);
+    }
+
+    /**
+     * Opens a cell: paths can only get shorter, so they spread out from it.
+     */
+    private void free(int cell) {
+        blocked[cell >>> 6] &= ~(1L << cell);
+        int best = Math.min(Math.min(distance[cell - 1], distance[cell + 1]),
+                Math.min(distance[cell - gridSize], distance[cell + gridSize]));
+        if (best == UNREACHABLE) {
+            return; // Walled off from the food; its neighbours cannot gain anything either
+        }
+        distance[cell] = best + 1;
+        queue[0] = cell;
+        search(1);
+    }
+
+    /**
+     * Closes a cell: the cells whose every shortest path went through it lose
+     * their distance, and get a new one from the cells around them that kept theirs.
+     */
+    private void block(int cell) {
+        blocked[cell >>> 6] |= 1L << cell;
+        if (distance[cell] == UNREACHABLE) {
+            return;
+        }
+
+        // Layer by layer outwards, so a cell's other parents are settled before it is checked
+        int count = 1;
+        invalid[0] = cell;
+        oldDistance[0] = distance[cell];
+        distance[cell] = UNREACHABLE;
+        for (int i = 0; i < count; i++) {
+            int c = invalid[i];
+            int child = oldDistance[i] + 1;
+            count = invalidate(c - 1, child, count);
+            count = invalidate(c + 1, child, count);
+            count = invalidate(c - gridSize, child, count);
+            count = invalidate(c + gridSize, child, count);
+        }
+
+        // Restart from the invalid cells next to cells that kept their distance, nearest first
+        int seedCount = 0;
+        for (int i = 1; i < count; i++) {
+            int c = invalid[i];
+            int best = Math.min(Math.min(distance[c - 1], distance[c + 1]),
+                    Math.min(distance[c - gridSize], distance[c + gridSize]));
+            if (best != UNREACHABLE) {
+                seeds[seedCount++] = (long) (best + 1) << 32 | c;
+            }
+        }
+        Arrays.sort(seeds, 0, seedCount);
+
+        // A breadth-first search whose queue is merged with the sorted seeds keeps cells in distance order
+        int head = 0;
+        int tail = 0;
+        int next = 0;
+        while (next < seedCount || head < tail) {
+            int c;
+            if (next < seedCount && (head == tail || (int) (seeds[next] >>> 32) <= distance[queue[head]])) {
+                c = (int) seeds[next];
+                int d = (int) (seeds[next++] >>> 32);
+                if (d >= distance[c]) {
+                    continue;
+                }
+                distance[c] = d;
+            } else {
+                c = queue[head++];
+            }
+            tail = relax(c, tail);
+        }
+    }
+
+    /**
+     * Runs a breadth-first search from the cells already in the queue.
+     */
+    private void search(int tail) {
+        for (int head = 0; head < tail; head++) {
+            tail = relax(queue[head], tail);
+        }
+    }
+
+    /**
+     * Offers the open neighbours of a cell one step more than its distance, queueing those that improve.
+     * Blocked cells always have UNREACHABLE, so only those need the bitset check.
+     * @return The new end of the queue.
+     */
+    private int relax(int cell, int tail) {
+        int d = distance[cell] + 1;
+        tail = offer(cell - 1, d, tail);
+        tail = offer(cell + 1, d, tail);
+        tail = offer(cell - gridSize, d, tail);
+        return offer(cell + gridSize, d, tail);
+    }
+
+    private int offer(int cell, int d, int tail) {
+        if (distance[cell] > d && (blocked[cell >>> 6] & (1L << cell)) == 0) {
+            distance[cell] = d;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Takes the distance from a cell one step beyond an invalid one, unless another neighbour still leads to the food.
+     * @return The new number of invalid cells.
+     */
+    private int invalidate(int cell, int child, int count) {
+        if (distance[cell] != child || hasParent(cell, child - 1)) {
+            return count;
+        }
+        invalid[count] = cell;
+        oldDistance[count] = child;
+        distance[cell] = UNREACHABLE;
+        return count + 1;
+    }
+
+    private boolean hasParent(int cell, int parentDistance) {
+        return distance[cell - 1] == parentDistance || distance[cell + 1] == parentDistance
+                || distance[cell - gridSize] == parentDistance || distance[cell + gridSize] == parentDistance;
+    }
+}
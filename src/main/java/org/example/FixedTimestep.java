@@ -0,0 +1,50 @@
+package org.example;
+
+/**
+ * Turns wall-clock time into a whole number of fixed-length game ticks.
+ * Leftover time is carried over to the next frame instead of being dropped,
+ * so the tick rate matches the step length regardless of the frame rate.
+ */
+public class FixedTimestep {
+    private final double step; // Seconds per tick
+    private final int maxStepsPerFrame; // Catch-up limit after a long stall
+    // Ticks are counted from a fixed origin rather than by summing frame times, so rounding never adds up
+    private double origin; // Time of tick 0; moved forward by the ticks a stall drops
+    private long ticks; // Ticks run since the origin
+    private double lastTime;
+
+    public FixedTimestep(double step, int maxStepsPerFrame, double now) {
+        this.step = step;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        this.origin = now;
+        this.lastTime = now;
+    }
+
+    /**
+     * Accounts for the time elapsed since the previous call.
+     * @param now The current time in seconds.
+     * @return The number of ticks to run this frame, at most maxStepsPerFrame.
+     */
+    int advance(double now) {
+        lastTime = now;
+        long due = (long) ((now - origin) / step);
+        long steps = due - ticks;
+        if (steps > maxStepsPerFrame) {
+            // Too far behind to catch up: keep only the fraction of a tick
+            origin += (steps - maxStepsPerFrame) * step;
+            steps = maxStepsPerFrame;
+        } else if (steps < 0) {
+            steps = 0;
+        }
+        ticks += steps;
+        return (int) steps;
+    }
+
+    /**
+     * Returns how far the current time is between the last tick and the next one,
+     * from 0 to 1, for interpolating what is drawn.
+     */
+    float alpha() {
+        return (float) Math.min(1, Math.max(0, (lastTime - origin) / step - ticks));
+    }
+}
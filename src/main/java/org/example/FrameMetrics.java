@@ -0,0 +1,183 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times each stage between a key press and the frame that shows it: the tick,
+ * the render submission and the buffer swap. Frame time is measured from swap
+ * to swap, and input latency from the key press to the return of the first
+ * swap after the tick that applied it. The tick histograms are recorded on the
+ * simulation thread, everything else on the render thread.
+ * All times are System.nanoTime() values; recording allocates nothing.
+ */
+public class FrameMetrics implements FrameMetricsMXBean {
+    private static final int FRAMES_PER_OVERLAY = 30; // Frames between refreshes of the overlay text
+
+    final Histogram frameTime = new Histogram();
+    final Histogram tickTime = new Histogram();
+    final Histogram tickInterval = new Histogram(); // Start to start, which should stay at the tick length
+    final Histogram renderTime = new Histogram();
+    final Histogram inputLatency = new Histogram();
+
+    private long lastSwap = -1; // Return of the previous swap, or -1 after a pause
+    private final long[] pressTimes = new long[16]; // Press times of turns waiting for their frame
+    private int pendingPresses;
+    private long lastPress; // Latest press time passed to turnApplied()
+    private int framesSinceOverlay = FRAMES_PER_OVERLAY;
+    private String[] overlay = new String[0];
+
+    void tick(long start, long end) {
+        tickTime.record(end - start);
+    }
+
+    void tickInterval(long nanos) {
+        tickInterval.record(nanos);
+    }
+
+    /**
+     * Notes that a tick applied a turn; its latency is recorded when the next frame is shown.
+     * A press time already passed in is ignored, since snapshots repeat it until it is shown.
+     */
+    void turnApplied(long pressTime) {
+        if (pressTime <= lastPress) {
+            return;
+        }
+        lastPress = pressTime;
+        if (pendingPresses < pressTimes.length) {
+            pressTimes[pendingPresses++] = pressTime;
+        }
+    }
+
+    void rendered(long start, long end) {
+        renderTime.record(end - start);
+    }
+
+    /**
+     * Records a frame whose swap returned at the given time.
+     */
+    void frameShown(long swapReturn) {
+        if (lastSwap != -1) {
+            frameTime.record(swapReturn - lastSwap);
+        }
+        lastSwap = swapReturn;
+        for (int i = 0; i < pendingPresses; i++) {
+            inputLatency.record(swapReturn - pressTimes[i]);
+        }
+        pendingPresses = 0;
+        framesSinceOverlay++;
+    }
+
+    /**
+     * Forgets the last frame, so the time spent in a menu does not count as a frame.
+     */
+    void pause() {
+        lastSwap = -1;
+        pendingPresses = 0;
+    }
+
+    /**
+     * Returns the text lines for the on-screen overlay, rebuilt every few frames.
+     */
+    String[] overlay() {
+        if (framesSinceOverlay >= FRAMES_PER_OVERLAY) {
+            framesSinceOverlay = 0;
+            overlay = new String[]{
+                    line("Frame", frameTime),
+                    line("Tick", tickTime),
+                    line("Tick gap", tickInterval),
+                    line("Render", renderTime),
+                    line("Input", inputLatency)
+            };
+        }
+        return overlay;
+    }
+
+    /**
+     * Publishes these metrics on the platform MBean server.
+     */
+    void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("org.example:type=FrameMetrics"));
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register frame metrics", e);
+        }
+    }
+
+    @Override
+    public long getFrames() {
+        return frameTime.count();
+    }
+
+    @Override
+    public double getFrameTimeP50() {
+        return micros(frameTime.percentile(50));
+    }
+
+    @Override
+    public double getFrameTimeP99() {
+        return micros(frameTime.percentile(99));
+    }
+
+    @Override
+    public double getFrameTimeMax() {
+        return micros(frameTime.max());
+    }
+
+    @Override
+    public double getTickTimeP99() {
+        return micros(tickTime.percentile(99));
+    }
+
+    @Override
+    public double getTickIntervalP99() {
+        return micros(tickInterval.percentile(99));
+    }
+
+    @Override
+    public double getRenderTimeP99() {
+        return micros(renderTime.percentile(99));
+    }
+
+    @Override
+    public double getInputLatencyP50() {
+        return micros(inputLatency.percentile(50));
+    }
+
+    @Override
+    public double getInputLatencyP99() {
+        return micros(inputLatency.percentile(99));
+    }
+
+    @Override
+    public double getInputLatencyMax() {
+        return micros(inputLatency.max());
+    }
+
+    @Override
+    public String dump() {
+        return String.join(System.lineSeparator(), line("Frame time", frameTime), line("Tick time", tickTime),
+                line("Tick interval", tickInterval), line("Render time", renderTime),
+                line("Input latency", inputLatency));
+    }
+
+    @Override
+    public void reset() {
+        frameTime.reset();
+        tickTime.reset();
+        tickInterval.reset();
+        renderTime.reset();
+        inputLatency.reset();
+    }
+
+    private static String line(String name, Histogram histogram) {
+        return String.format("%s: n=%d p50=%.2f p90=%.2f p99=%.2f max=%.2f ms", name, histogram.count(),
+                histogram.percentile(50) / 1e6, histogram.percentile(90) / 1e6, histogram.percentile(99) / 1e6,
+                histogram.max() / 1e6);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1e3;
+    }
+}
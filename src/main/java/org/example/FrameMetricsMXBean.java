@@ -0,0 +1,37 @@
+package org.example;
+
+/**
+ * The frame, tick and input latency statistics published over JMX as
+ * org.example:type=FrameMetrics. Times are in microseconds.
+ */
+public interface FrameMetricsMXBean {
+    long getFrames();
+
+    double getFrameTimeP50();
+
+    double getFrameTimeP99();
+
+    double getFrameTimeMax();
+
+    double getTickTimeP99();
+
+    double getTickIntervalP99();
+
+    double getRenderTimeP99();
+
+    double getInputLatencyP50();
+
+    double getInputLatencyP99();
+
+    double getInputLatencyMax();
+
+    /**
+     * Returns every histogram summarized as text.
+     */
+    String dump();
+
+    /**
+     * Clears every histogram.
+     */
+    void reset();
+}
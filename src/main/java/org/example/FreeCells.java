@@ -0,0 +1,93 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * The set of grid cells that are free for food to spawn on.
+ * Cells are kept densely packed in an array so a uniformly random free cell
+ * can be picked in constant time; removal swaps the last cell into the gap.
+ */
+public class FreeCells {
+    private final int[] cells; // Free cells, packed as y * gridSize + x, in the first size slots
+    private final int[] positions; // Index of each cell in cells, or -1 when the cell is not free
+    private SharedPages pages; // Copies of cells for snapshots; positions follow from them
+    private int size;
+
+    public FreeCells(int gridSize) {
+        cells = new int[gridSize * gridSize];
+        positions = new int[gridSize * gridSize];
+        Arrays.fill(positions, -1);
+    }
+
+    void add(int cell) {
+        if (positions[cell] != -1) {
+            return;
+        }
+        cells[size] = cell;
+        if (pages != null) {
+            pages.mark(size);
+        }
+        positions[cell] = size;
+        size++;
+    }
+
+    void remove(int cell) {
+        int index = positions[cell];
+        if (index == -1) {
+            return;
+        }
+        int last = cells[--size];
+        cells[index] = last;
+        if (pages != null) {
+            pages.mark(index);
+        }
+        positions[last] = index;
+        positions[cell] = -1;
+    }
+
+    boolean contains(int cell) {
+        return positions[cell] != -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the cells for a snapshot. Their order decides where food spawns,
+     * so it is kept along with the set.
+     */
+    int[][] copyCells() {
+        if (pages == null) {
+            pages = new SharedPages(cells); // Games without snapshots do not track pages
+        }
+        return pages.copy();
+    }
+
+    /**
+     * Puts back the cells of a snapshot that held size free cells.
+     */
+    void restore(int[][] cellPages, int size) {
+        if (pages == null) {
+            pages = new SharedPages(cells);
+        }
+        pages.restore(cellPages);
+        this.size = size;
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < size; i++) {
+            positions[cells[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the free cell at the given index.
+     * @param index A value between 0 and size() - 1; a uniform index gives a uniform cell.
+     */
+    int get(int index) {
+        return cells[index];
+    }
+}
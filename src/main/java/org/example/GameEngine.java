@@ -0,0 +1,225 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The snake simulation without any windowing or rendering.
+ * All randomness comes from the given seeded Rng, so the same seed and the
+ * same inputs always produce the same game.
+ */
+public final class GameEngine implements BoardView {
+    private static final AtomicLong GAMES = new AtomicLong(); // Source of game ids
+
+    private final int gridSize;
+    private final int borderOffset; // Border width in grid cells
+    private final Level level;
+    private final Rng rng;
+
+    Snake snake;
+    FreeCells freeCells;
+    final ChunkGrid chunks; // Chunks the body changed in, for renderers that redraw only those
+    int food; // Food cell, packed as y * gridSize + x, or -1 when there is none
+    int score;
+    GameState state;
+    long tick; // Number of steps taken since the game started
+    private long gameId;
+
+    public GameEngine(int gridSize, int borderOffset, Rng rng) {
+        this(Level.border(gridSize, borderOffset), rng);
+    }
+
+    public GameEngine(Level level, Rng rng) {
+        this.gridSize = level.gridSize();
+        this.borderOffset = level.borderOffset();
+        this.level = level;
+        this.rng = rng;
+        this.chunks = new ChunkGrid(gridSize);
+        reset();
+    }
+
+    /**
+     * Starts a new game with the snake in the middle of the grid heading up.
+     */
+    void reset() {
+        snake = new Snake(gridSize, gridSize / 2, gridSize / 2);
+        snake.direction = Direction.UP;
+        score = 0;
+        tick = 0;
+        state = GameState.PLAYING;
+        gameId = GAMES.incrementAndGet();
+        chunks.markAll();
+
+        // Every cell without a wall except the one under the snake is free
+        freeCells = new FreeCells(gridSize);
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            if (!level.wall(cell)) {
+                freeCells.add(cell);
+            }
+        }
+        freeCells.remove(snake.headY() * gridSize + snake.headX());
+        spawnFood();
+    }
+
+    /**
+     * Advances the game by one tick.
+     * @param input The direction requested by the player, or null to keep going straight.
+     *              A request to reverse into the body is ignored.
+     * @return The state after the tick: PLAYING, GAME_OVER or WON.
+     */
+    GameState step(Direction input) {
+        if (state != GameState.PLAYING) {
+            return state;
+        }
+        tick++;
+        if (input != null && input != snake.direction.opposite()) {
+            snake.direction = input;
+        }
+
+        int newX = snake.nextHeadX();
+        int newY = snake.nextHeadY();
+
+        // The border is walled off too, so the head never gets past it
+        if (level.wall(newY * gridSize + newX)) {
+            state = GameState.GAME_OVER;
+            return state;
+        }
+
+        boolean eating = newY * gridSize + newX == food;
+
+        // Collision with itself
+        if (snake.collidesWith(newX, newY, eating)) {
+            state = GameState.GAME_OVER;
+            return state;
+        }
+
+        // The old head becomes part of the body, so its chunk changes as well
+        chunks.mark(snake.segment(0));
+        chunks.mark(newY * gridSize + newX);
+
+        // Eating food
+        if (eating) {
+            score++;
+            snake.grow(newX, newY);
+            freeCells.remove(newY * gridSize + newX);
+            spawnFood();
+        } else {
+            int tail = snake.move(newX, newY);
+            freeCells.add(tail);
+            freeCells.remove(newY * gridSize + newX);
+            chunks.mark(tail);
+        }
+        return state;
+    }
+
+    /**
+     * Captures the whole game. Only the parts of the body and free cells that changed
+     * since the last snapshot are copied, so this is cheap enough to call on every tick.
+     */
+    GameSnapshot snapshot() {
+        return new GameSnapshot(level, snake.copyCells(), snake.headIndex(), snake.length(), snake.lastTail(),
+                snake.direction, freeCells.copyCells(), freeCells.size(), food, score, state, tick, rng.state());
+    }
+
+    /**
+     * Puts the game back into the state of a snapshot of a game on the same level.
+     * The engine then plays on exactly as it did from that tick. Views see the
+     * restored board as a new game, since it need not follow from the last one.
+     */
+    void restore(GameSnapshot snapshot) {
+        if (snapshot.level != level) {
+            throw new IllegalArgumentException("Snapshot of level " + snapshot.level.name()
+                    + " does not fit level " + level.name());
+        }
+        snake.restore(snapshot.body, snapshot.head, snapshot.length, snapshot.lastTail);
+        snake.direction = snapshot.direction;
+        freeCells.restore(snapshot.freeCells, snapshot.freeCount);
+        food = snapshot.food;
+        score = snapshot.score;
+        state = snapshot.state;
+        tick = snapshot.tick;
+        rng.restore(snapshot.rngState);
+        gameId = GAMES.incrementAndGet();
+        chunks.markAll();
+    }
+
+    /**
+     * Checks whether moving the head to the given cell next tick would end the game,
+     * assuming the snake does not eat on the way there.
+     */
+    boolean blocked(int x, int y) {
+        if (level.wall(y * gridSize + x)) {
+            return true;
+        }
+        return snake.collidesWith(x, y, y * gridSize + x == food);
+    }
+
+    void spawnFood() {
+        if (freeCells.isEmpty()) {
+            // The snake fills the whole play area
+            food = -1;
+            state = GameState.WON;
+            return;
+        }
+        food = freeCells.get(rng.nextInt(freeCells.size()));
+    }
+
+    @Override
+    public int gridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public int borderOffset() {
+        return borderOffset;
+    }
+
+    @Override
+    public Level level() {
+        return level;
+    }
+
+    @Override
+    public long gameId() {
+        return gameId;
+    }
+
+    @Override
+    public long tick() {
+        return tick;
+    }
+
+    @Override
+    public int score() {
+        return score;
+    }
+
+    @Override
+    public int length() {
+        return snake.length();
+    }
+
+    @Override
+    public int segment(int i) {
+        return snake.segment(i);
+    }
+
+    @Override
+    public int lastTail() {
+        return snake.lastTail();
+    }
+
+    @Override
+    public int food() {
+        return food;
+    }
+
+    @Override
+    public boolean occupied(int cell) {
+        return snake.occupies(cell % gridSize, cell / gridSize);
+    }
+
+    @Override
+    public ChunkGrid chunks() {
+        return chunks;
+    }
+}
@@ -0,0 +1,432 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An authoritative arena server: each client that connects steers one snake in
+ * an ArenaEngine, and the snakes are shared out over rooms of a fixed size.
+ * Everything runs on one thread around a NIO selector.
+ * <p>
+ * Every tick each room is stepped once and its changes are encoded once, as the
+ * compact events of ArenaProtocol, and the same bytes go to every client in the
+ * room. Messages are gathered in a buffer per client and sent with one write per
+ * client per tick; a client whose buffer fills up because it does not read is
+ * disconnected.
+ */
+public class GameServer implements Closeable {
+    private static final int CLIENT_BUFFER = 64 * 1024; // Unsent bytes a client may fall behind by
+    private static final int MAX_TICKS_BEHIND = 5;
+
+    private final int gridSize;
+    private final int borderOffset;
+    private final int roomSize; // Snakes in each room
+    private final int foodPerRoom;
+    private final long tickNanos;
+    private final Rng seeds; // Seeds a new room's engine
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Room> rooms = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(256);
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Written by the server thread only
+    private final Histogram tickTimes = new Histogram(); // Step, encode and write of a whole tick
+    private volatile long ticks;
+    private volatile long bytesQueued; // Bytes of every message put in a client buffer
+    private volatile int clients;
+
+    /**
+     * A group of clients playing in one engine.
+     */
+    private class Room {
+        final ArenaEngine arena;
+        final Client[] members; // By snake; null where no client steers the snake
+        final byte[] inputs; // Latest turn each client asked for this tick
+        final boolean[] wasAlive;
+        final int[] oldLength;
+        final ByteBuffer message; // The tick message being encoded
+
+        Room(long seed) {
+            arena = new ArenaEngine(gridSize, borderOffset, roomSize, foodPerRoom, new Rng(seed));
+            members = new Client[roomSize];
+            inputs = new byte[roomSize];
+            Arrays.fill(inputs, ArenaEngine.NO_INPUT);
+            wasAlive = new boolean[roomSize];
+            oldLength = new int[roomSize];
+            // Type, tick, count, then at most a spawn and a move per snake and the food placed
+            message = ByteBuffer.allocate(1 + 10 + 5 + roomSize * 20 + foodPerRoom * 10);
+        }
+    }
+
+    private static class Client {
+        final SocketChannel channel;
+        final ByteBuffer out = ByteBuffer.allocateDirect(CLIENT_BUFFER); // Messages not yet sent
+        Room room;
+        int snake;
+        SelectionKey key;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Opens the server socket; call start() to begin ticking.
+     * @param address Address to listen on; port 0 picks a free one.
+     */
+    public GameServer(InetSocketAddress address, int gridSize, int borderOffset, int roomSize, int foodPerRoom,
+                      long tickNanos, long seed) throws IOException {
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.roomSize = roomSize;
+        this.foodPerRoom = foodPerRoom;
+        this.tickNanos = tickNanos;
+        this.seeds = new Rng(seed);
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(this::run, "game-server");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    int port() {
+        return server.socket().getLocalPort();
+    }
+
+    Histogram tickTimes() {
+        return tickTimes;
+    }
+
+    long ticks() {
+        return ticks;
+    }
+
+    long bytesQueued() {
+        return bytesQueued;
+    }
+
+    int clients() {
+        return clients;
+    }
+
+    /**
+     * Returns the engine of a room, counted in the order the rooms were opened.
+     * Only safe to read once the server is closed.
+     */
+    ArenaEngine arena(int room) {
+        return rooms.get(room).arena;
+    }
+
+    /**
+     * Stops the server thread and closes every connection.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                handleKeys();
+
+                long now = System.nanoTime();
+                if (now >= nextTick) {
+                    tick();
+                    long end = System.nanoTime();
+                    tickTimes.record(end - now);
+                    // Ticks stay on a fixed grid, as in Simulation
+                    nextTick += tickNanos;
+                    if (end - nextTick > MAX_TICKS_BEHIND * tickNanos) {
+                        nextTick = end;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Game server failed", e);
+        }
+    }
+
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Client client = (Client) key.attachment();
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(client);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        for (SocketChannel channel = server.accept(); channel != null; channel = server.accept()) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // One write per tick is already a batch
+            Client client = new Client(channel);
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            join(client);
+            clients++;
+        }
+    }
+
+    /**
+     * Seats a client at a snake no one steers and that is dead, in a new room if
+     * none has one, and sends it the room as it is. The snake spawns on the next tick.
+     */
+    private void join(Client client) {
+        for (Room room : rooms) {
+            for (int s = 0; s < roomSize; s++) {
+                if (room.members[s] == null && !room.arena.alive[s]) {
+                    seat(client, room, s);
+                    return;
+                }
+            }
+        }
+        Room room = new Room(seeds.nextLong());
+        // A new engine starts with every snake alive; they wait for their clients
+        for (int s = 0; s < roomSize; s++) {
+            room.arena.kill(s);
+        }
+        rooms.add(room);
+        seat(client, room, 0);
+    }
+
+    private void seat(Client client, Room room, int snake) {
+        client.room = room;
+        client.snake = snake;
+        room.members[snake] = client;
+        room.inputs[snake] = ArenaEngine.NO_INPUT;
+
+        ArenaEngine arena = room.arena;
+        int cells = arena.food;
+        for (int s = 0; s < roomSize; s++) {
+            cells += arena.length[s];
+        }
+        ByteBuffer welcome = ByteBuffer.allocate(1 + 4 * 5 + 10 + roomSize * 5 + cells * 5);
+        welcome.put(ArenaProtocol.WELCOME);
+        ArenaProtocol.putVarLong(welcome, gridSize);
+        ArenaProtocol.putVarLong(welcome, borderOffset);
+        ArenaProtocol.putVarLong(welcome, roomSize);
+        ArenaProtocol.putVarLong(welcome, snake);
+        ArenaProtocol.putVarLong(welcome, arena.tick);
+        for (int s = 0; s < roomSize; s++) {
+            int length = arena.length[s];
+            ArenaProtocol.putVarLong(welcome, length);
+            for (int i = length - 1; i >= 0; i--) {
+                ArenaProtocol.putVarLong(welcome, arena.segment(s, i));
+            }
+        }
+        ArenaProtocol.putVarLong(welcome, arena.food);
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            if (arena.food(cell)) {
+                ArenaProtocol.putVarLong(welcome, cell);
+            }
+        }
+        welcome.flip();
+        send(client, welcome);
+    }
+
+    private void read(Client client) {
+        readBuffer.clear();
+        int read;
+        try {
+            read = client.channel.read(readBuffer);
+        } catch (IOException e) {
+            read = -1; // Reset by the client
+        }
+        if (read < 0) {
+            disconnect(client);
+            return;
+        }
+        // Only the latest press before a tick counts, as with a held key
+        for (int i = 0; i < read; i++) {
+            byte direction = readBuffer.get(i);
+            if (direction >= 0 && direction < 4) {
+                client.room.inputs[client.snake] = direction;
+            }
+        }
+    }
+
+    private void tick() throws IOException {
+        for (Room room : rooms) {
+            tick(room);
+        }
+        // One write per client, holding everything queued since the last one
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Client client) {
+                flush(client);
+            }
+        }
+        ticks++;
+    }
+
+    private void tick(Room room) {
+        ArenaEngine arena = room.arena;
+        ByteBuffer message = room.message.clear();
+        message.put(ArenaProtocol.TICK);
+        ArenaProtocol.putVarLong(message, arena.tick + 1);
+        int countAt = message.position();
+        message.position(countAt + 5); // Room for the event count, filled in below
+        int events = 0;
+
+        for (int s = 0; s < roomSize; s++) {
+            if (!arena.alive[s] && room.members[s] != null && arena.respawn(s)) {
+                ArenaProtocol.putVarLong(message, s << 4 | ArenaProtocol.SPAWN);
+                ArenaProtocol.putVarLong(message, arena.segment(s, 0));
+                events++;
+            }
+            room.wasAlive[s] = arena.alive[s];
+            room.oldLength[s] = arena.length[s];
+        }
+
+        arena.step(room.inputs);
+        Arrays.fill(room.inputs, ArenaEngine.NO_INPUT);
+
+        for (int s = 0; s < roomSize; s++) {
+            if (!room.wasAlive[s]) {
+                continue;
+            }
+            if (!arena.alive[s]) {
+                ArenaProtocol.putVarLong(message, s << 4 | ArenaProtocol.DIE);
+            } else {
+                int kind = arena.length[s] > room.oldLength[s] ? ArenaProtocol.GROW : ArenaProtocol.MOVE;
+                ArenaProtocol.putVarLong(message, s << 4 | kind | arena.direction[s]);
+            }
+            events++;
+        }
+        for (int i = 0; i < arena.placed; i++) {
+            ArenaProtocol.putVarLong(message, ArenaProtocol.FOOD);
+            ArenaProtocol.putVarLong(message, arena.placedFood[i]);
+            events++;
+        }
+
+        // The count goes in a fixed five-byte varint, so nothing has to move
+        for (int i = 0; i < 5; i++) {
+            message.put(countAt + i, (byte) ((events >>> (7 * i)) & 0x7F | (i < 4 ? 0x80 : 0)));
+        }
+        message.flip();
+        for (Client client : room.members) {
+            if (client != null) {
+                send(client, message);
+            }
+        }
+    }
+
+    /**
+     * Queues a message, with its length in front, in the client's buffer.
+     * The message's position is left alone, so one encoded message can go to every client of a room.
+     */
+    private void send(Client client, ByteBuffer message) {
+        ByteBuffer out = client.out;
+        int length = message.remaining();
+        if (out.remaining() < length + 5) {
+            disconnect(client); // Too far behind to catch up
+            return;
+        }
+        int start = out.position();
+        ArenaProtocol.putVarLong(out, length);
+        out.put(out.position(), message, message.position(), length);
+        out.position(out.position() + length);
+        bytesQueued += out.position() - start;
+    }
+
+    private void flush(Client client) {
+        ByteBuffer out = client.out;
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        try {
+            client.channel.write(out);
+        } catch (IOException e) {
+            disconnect(client);
+            return;
+        }
+        out.compact();
+        // Wait for the socket to drain before writing the rest
+        int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (client.key.interestOps() != ops) {
+            client.key.interestOps(ops);
+        }
+    }
+
+    private void disconnect(Client client) {
+        if (!client.key.isValid()) {
+            return;
+        }
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        // The snake runs on unsteered until it dies, and then the seat is free again
+        client.room.members[client.snake] = null;
+        clients--;
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * Arguments: [port] [room size], defaulting to 7777 and 16.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int roomSize = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        GameServer server = new GameServer(new InetSocketAddress(port), 64, 1, roomSize, roomSize,
+                (long) (Difficulty.MEDIUM.secondsPerTick * 1e9), System.nanoTime());
+        server.start();
+        System.out.println("Snake arena server listening on port " + server.port());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+/**
+ * The whole state of a GameEngine after one tick, taken by GameEngine.snapshot()
+ * and put back by GameEngine.restore(). A snapshot never changes. Its body and
+ * free cells are pages shared with the snapshots taken before and after it, so
+ * one can be kept for every tick of a game.
+ */
+public class GameSnapshot {
+    final Level level;
+    final int[][] body; // Pages of the snake's cell ring
+    final int head; // Index of the head in the ring
+    final int length;
+    final int lastTail;
+    final Direction direction;
+    final int[][] freeCells; // Pages of the free cells, in FreeCells order
+    final int freeCount;
+    final int food;
+    final int score;
+    final GameState state;
+    final long tick;
+    final long rngState;
+
+    GameSnapshot(Level level, int[][] body, int head, int length, int lastTail, Direction direction,
+                 int[][] freeCells, int freeCount, int food, int score, GameState state, long tick, long rngState) {
+        this.level = level;
+        this.body = body;
+        this.head = head;
+        this.length = length;
+        this.lastTail = lastTail;
+        this.direction = direction;
+        this.freeCells = freeCells;
+        this.freeCount = freeCount;
+        this.food = food;
+        this.score = score;
+        this.state = state;
+        this.tick = tick;
+        this.rngState = rngState;
+    }
+
+    long tick() {
+        return tick;
+    }
+
+    int score() {
+        return score;
+    }
+}
@@ -5,5 +5,6 @@ public enum GameState {
     HELP,
     DIFFICULTY_MENU,
     PLAYING,
-    GAME_OVER
+    GAME_OVER,
+    WON
 }
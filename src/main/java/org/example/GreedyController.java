@@ -0,0 +1,37 @@
+package org.example;
+
+/**
+ * Heads for the food by the shortest straight-line step that does not end the game.
+ * Cheap enough to evaluate millions of times per second; it does not plan ahead,
+ * so it regularly traps itself once the snake gets long.
+ */
+public class GreedyController implements Controller {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction next(GameEngine game) {
+        Snake snake = game.snake;
+        int gridSize = game.gridSize();
+        int foodX = game.food % gridSize;
+        int foodY = game.food / gridSize;
+
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction direction : DIRECTIONS) {
+            if (direction == snake.direction.opposite()) {
+                continue;
+            }
+            int x = snake.headX() + direction.dx();
+            int y = snake.headY() + direction.dy();
+            if (game.blocked(x, y)) {
+                continue;
+            }
+            int distance = Math.abs(foodX - x) + Math.abs(foodY - y);
+            if (distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best; // Null when every move is fatal: keep going and lose
+    }
+}
@@ -0,0 +1,295 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Keeps the best scores for each difficulty on disk.
+ * <p>
+ * New scores go into an in-memory top list at once, so the leaderboard can be
+ * read without waiting, and are appended to a log by a background thread that
+ * fsyncs once per batch. Once the log grows long enough the top lists are
+ * written to a snapshot file and the log is emptied. Opening the store reads
+ * the snapshot plus the short log written since.
+ */
+public class HighScoreStore implements Closeable {
+    static final int TOP = 10; // Scores kept per difficulty
+    private static final int COMPACT_AFTER = 256; // Log records written before the next snapshot
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4B48; // "SNKH"
+    private static final int RECORD_BYTES = 1 + Integer.BYTES + Long.BYTES; // difficulty, score, time
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+    // Higher scores first; on equal scores the older one ranks higher
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingInt(Entry::score).thenComparing(Entry::time, Comparator.reverseOrder());
+
+    record Entry(int score, long time) {
+    }
+
+    private record Pending(Difficulty difficulty, Entry entry) {
+    }
+
+    private static final Pending CLOSE = new Pending(null, null); // Tells the writer to stop
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final FileChannel log;
+
+    private final Map<Difficulty, PriorityQueue<Entry>> top; // What readers see, guarded by this
+    private final Map<Difficulty, PriorityQueue<Entry>> persisted; // What is on disk; writer thread only
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean failed; // Set once the writer gave up; scores are then kept in memory only
+    private int logged; // Records in the log since the last snapshot; writer thread only
+
+    public HighScoreStore(Path directory) {
+        snapshotFile = directory.resolve("scores.snapshot");
+        logFile = directory.resolve("scores.log");
+        top = emptyHeaps();
+        persisted = emptyHeaps();
+        try {
+            Files.createDirectories(directory);
+            readSnapshot();
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            readLog();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open high scores in " + directory, e);
+        }
+        for (Difficulty difficulty : DIFFICULTIES) {
+            top.get(difficulty).addAll(persisted.get(difficulty));
+        }
+
+        writer = new Thread(this::writeLoop, "high-score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Adds a score; it shows up in top() immediately and is saved in the background,
+     * unless saving failed earlier, in which case it lasts until the game exits.
+     */
+    void submit(Difficulty difficulty, int score) {
+        Entry entry = new Entry(score, System.currentTimeMillis());
+        synchronized (this) {
+            offer(top.get(difficulty), entry);
+        }
+        if (!failed) {
+            pending.add(new Pending(difficulty, entry));
+        }
+    }
+
+    /**
+     * Checks whether the writer stopped after failing to save, so new scores are no longer saved.
+     */
+    boolean failed() {
+        return failed;
+    }
+
+    /**
+     * Returns the best scores for a difficulty, highest first.
+     */
+    synchronized List<Entry> top(Difficulty difficulty) {
+        List<Entry> entries = new ArrayList<>(top.get(difficulty));
+        entries.sort(RANKING.reversed());
+        return entries;
+    }
+
+    /**
+     * Returns the highest score for a difficulty, or 0 if none was saved yet.
+     */
+    int best(Difficulty difficulty) {
+        List<Entry> entries = top(difficulty);
+        return entries.isEmpty() ? 0 : entries.get(0).score();
+    }
+
+    /**
+     * Saves every submitted score, writes a fresh snapshot and stops the writer.
+     */
+    @Override
+    public void close() {
+        if (failed || !writer.isAlive()) {
+            return;
+        }
+        pending.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        try {
+            boolean closing = false;
+            while (!closing) {
+                batch.clear();
+                batch.add(pending.take());
+                pending.drainTo(batch);
+                closing = batch.remove(CLOSE);
+
+                if (buffer.capacity() < batch.size() * RECORD_BYTES) {
+                    buffer = ByteBuffer.allocate(batch.size() * RECORD_BYTES);
+                }
+                buffer.clear();
+                for (Pending p : batch) {
+                    buffer.put((byte) p.difficulty().ordinal()).putInt(p.entry().score()).putLong(p.entry().time());
+                    offer(persisted.get(p.difficulty()), p.entry());
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                log.force(false); // One fsync for the whole batch
+                logged += batch.size();
+
+                if (logged >= COMPACT_AFTER || closing && logged > 0) {
+                    compact();
+                }
+            }
+            log.close();
+        } catch (IOException e) {
+            // Nothing consumes the queue from here on, so stop filling it
+            failed = true;
+            pending.clear();
+            System.err.println("Failed to save high scores, new ones are kept until exit: " + e);
+            try {
+                log.close();
+            } catch (IOException closeFailure) {
+                // Already failing
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compact() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + DIFFICULTIES.length * (1 + TOP * (RECORD_BYTES - 1)));
+        buffer.putInt(SNAPSHOT_MAGIC);
+        for (Difficulty difficulty : DIFFICULTIES) {
+            PriorityQueue<Entry> heap = persisted.get(difficulty);
+            buffer.put((byte) heap.size());
+            for (Entry entry : heap) {
+                buffer.putInt(entry.score()).putLong(entry.time());
+            }
+        }
+        buffer.flip();
+
+        // Replace the snapshot atomically, then drop the log it now covers
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.truncate(0);
+        log.force(true);
+        logged = 0;
+    }
+
+    /**
+     * Reads the snapshot into the persisted heaps. A damaged snapshot is set aside and
+     * the store starts without it, so a bad file costs the old scores but not the game.
+     */
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (!parseSnapshot(buffer)) {
+            persisted.values().forEach(PriorityQueue::clear);
+            Path corrupt = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".corrupt");
+            Files.move(snapshotFile, corrupt, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("Ignoring damaged high score snapshot, moved to " + corrupt);
+        }
+    }
+
+    /**
+     * @return Whether the buffer held a whole, valid snapshot.
+     */
+    private boolean parseSnapshot(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        for (Difficulty difficulty : DIFFICULTIES) {
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+            int count = buffer.get();
+            if (count < 0 || count > TOP || buffer.remaining() < count * (RECORD_BYTES - 1)) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                offer(persisted.get(difficulty), new Entry(buffer.getInt(), buffer.getLong()));
+            }
+        }
+        return true;
+    }
+
+    private void readLog() throws IOException {
+        long records = log.size() / RECORD_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (records * RECORD_BYTES));
+        while (buffer.hasRemaining() && log.read(buffer) != -1) {
+            // Keep reading until the buffer is full
+        }
+        buffer.flip();
+        long valid = 0;
+        for (; valid < records; valid++) {
+            byte difficulty = buffer.get();
+            Entry entry = new Entry(buffer.getInt(), buffer.getLong());
+            if (difficulty < 0 || difficulty >= DIFFICULTIES.length || entry.score() < 0) {
+                System.err.println("Ignoring high score log from damaged record " + valid + " on");
+                break;
+            }
+            PriorityQueue<Entry> heap = persisted.get(DIFFICULTIES[difficulty]);
+            // A crash between a snapshot and emptying the log leaves entries the snapshot already has
+            if (!heap.contains(entry)) {
+                offer(heap, entry);
+            }
+        }
+        // A record cut short by a crash, or a damaged one, ends the log; whatever follows is dropped
+        if (log.size() > valid * RECORD_BYTES) {
+            log.truncate(valid * RECORD_BYTES);
+        }
+        log.position(valid * RECORD_BYTES);
+        logged = (int) valid;
+    }
+
+    private static void offer(PriorityQueue<Entry> heap, Entry entry) {
+        // The heap's head is the lowest kept score, which a better score replaces
+        if (heap.size() < TOP) {
+            heap.add(entry);
+        } else if (RANKING.compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    private static Map<Difficulty, PriorityQueue<Entry>> emptyHeaps() {
+        Map<Difficulty, PriorityQueue<Entry>> heaps = new EnumMap<>(Difficulty.class);
+        for (Difficulty difficulty : DIFFICULTIES) {
+            heaps.put(difficulty, new PriorityQueue<>(RANKING));
+        }
+        return heaps;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations in log-linear buckets, in the style of HdrHistogram: each
+ * power of two is split into 64 equal buckets, so a reported percentile is
+ * within about 1.6% of the true value from nanoseconds up to hours, in a
+ * fixed array and without allocating while recording.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Values below this are counted exactly
+    private static final int HALF = SUB_BUCKETS / 2; // Buckets per power of two above that
+    private static final long MAX_VALUE = (1L << 43) - 1; // About 2.4 hours in nanoseconds; larger values are clamped
+
+    private final long[] counts = new long[index(MAX_VALUE) + 1];
+    private long total;
+    private long max;
+    private long sum;
+
+    synchronized void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+        counts[index(clamped)]++;
+        total++;
+        sum += clamped;
+        max = Math.max(max, clamped);
+    }
+
+    synchronized long count() {
+        return total;
+    }
+
+    synchronized long max() {
+        return max;
+    }
+
+    synchronized double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Returns a value that the given percentage of recorded values are at or below.
+     * @param percentile From 0 to 100.
+     * @return The upper end of the bucket holding that value, or 0 if nothing was recorded.
+     */
+    synchronized long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    synchronized void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top SUB_BUCKET_BITS - 1 bits below the leading one
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - HALF) / HALF;
+        long subBucket = index - shift * HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
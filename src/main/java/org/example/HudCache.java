@@ -0,0 +1,72 @@
+package org.example;
+
+import org.lwjgl.nanovg.NVGColor;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Keeps the NanoVG structs and encoded strings used on every frame, so drawing
+ * the HUD allocates nothing. The score and difficulty text are re-encoded only
+ * when their value changes.
+ */
+public class HudCache {
+    private static final int TEXT_CAPACITY = 64; // Bytes per encoded line
+
+    final NVGColor color = NVGColor.malloc(); // Scratch color, set before each use
+    final ByteBuffer fontFace = memUTF8("Poppins");
+
+    private final ByteBuffer scoreText = memAlloc(TEXT_CAPACITY);
+    private final ByteBuffer difficultyText = memAlloc(TEXT_CAPACITY);
+    private int score = -1;
+    private String difficulty;
+
+    /**
+     * Returns "Score: " followed by the score, ready for nvgText.
+     */
+    ByteBuffer scoreText(int value) {
+        if (value != score) {
+            score = value;
+            scoreText.clear();
+            putAscii(scoreText, "Score: ");
+            putDigits(scoreText, value);
+            scoreText.flip();
+        }
+        return scoreText;
+    }
+
+    /**
+     * Returns "Difficulty: " followed by the difficulty name, ready for nvgText.
+     */
+    ByteBuffer difficultyText(String name) {
+        if (!name.equals(difficulty)) {
+            difficulty = name;
+            difficultyText.clear();
+            putAscii(difficultyText, "Difficulty: ");
+            putAscii(difficultyText, name);
+            difficultyText.flip();
+        }
+        return difficultyText;
+    }
+
+    private static void putAscii(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private static void putDigits(ByteBuffer buffer, int value) {
+        if (value >= 10) {
+            putDigits(buffer, value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    void free() {
+        color.free();
+        memFree(fontFace);
+        memFree(scoreText);
+        memFree(difficultyText);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of direction key presses from one producer (the GLFW key
+ * callback) to one consumer (the tick). Lock-free and allocation-free: presses
+ * are stored as ordinals in a fixed ring, and each side only writes its own counter.
+ */
+public class InputQueue {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] ring;
+    private final long[] pressTimes; // System.nanoTime() of each press, in the same slots as ring
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Presses taken so far; written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // Presses added so far; written by the producer
+    private long turnPressTime; // Press time of the last turn returned by pollTurn(); consumer only
+
+    /**
+     * @param capacity Presses that can wait at once; rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        ring = new byte[size];
+        pressTimes = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a press; called by the producer only.
+     * @param pressTime System.nanoTime() when the key went down, for latency measurement.
+     * @return False if the queue is full and the press was dropped.
+     */
+    boolean offer(Direction direction, long pressTime) {
+        long t = tail.get();
+        if (t - head.getAcquire() == ring.length) {
+            return false;
+        }
+        ring[(int) t & mask] = (byte) direction.ordinal();
+        pressTimes[(int) t & mask] = pressTime;
+        tail.setRelease(t + 1); // Publishes the slot written above
+        return true;
+    }
+
+    /**
+     * Takes the oldest press, or returns null if there is none; called by the consumer only.
+     */
+    Direction poll() {
+        long h = head.get();
+        if (h == tail.getAcquire()) {
+            return null;
+        }
+        Direction direction = DIRECTIONS[ring[(int) h & mask]];
+        turnPressTime = pressTimes[(int) h & mask];
+        head.setRelease(h + 1); // Hands the slot back to the producer
+        return direction;
+    }
+
+    /**
+     * Takes presses until one turns a snake heading the given way, and returns it.
+     * Presses that repeat the heading or reverse it are dropped, so each tick
+     * gets at most one real turn and later presses wait for later ticks.
+     * @return The turn for this tick, or null to keep going straight.
+     */
+    Direction pollTurn(Direction heading) {
+        for (Direction direction = poll(); direction != null; direction = poll()) {
+            if (direction != heading && direction != heading.opposite()) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns when the key of the turn last returned by pollTurn() was pressed.
+     */
+    long turnPressTime() {
+        return turnPressTime;
+    }
+
+    /**
+     * Drops every waiting press; called by the consumer only.
+     */
+    void clear() {
+        head.setRelease(tail.getAcquire());
+    }
+}
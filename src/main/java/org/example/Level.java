@@ -0,0 +1,179 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The walls of a board: the border around the play area plus any obstacles,
+ * one bit per cell, so a collision or a free-cell check is a single bit test.
+ * Levels are stored as the same packed bitmap and mapped into memory to load.
+ * Walls never change during a game, and a level is never modified once built.
+ */
+public class Level {
+    /*
+     * File layout: int MAGIC, byte VERSION, int gridSize, then the wall bitmap as
+     * (gridSize * gridSize + 63) / 64 longs, bit (cell & 63) of long (cell >> 6)
+     * set for a wall. The border is added on loading, so files need not include it.
+     */
+    static final int MAGIC = 0x534E4B4C; // "SNKL"
+    static final byte VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+
+    private final String name;
+    private final int gridSize;
+    private final int borderOffset; // Border width in grid cells
+    private final long[] walls; // One bit per cell, packed as y * gridSize + x
+    private final boolean obstacles; // Whether there are walls inside the border
+
+    private Level(String name, int gridSize, int borderOffset, long[] walls) {
+        if (borderOffset < 1 || gridSize <= 2 * borderOffset) {
+            throw new IllegalArgumentException("A " + gridSize + " grid has no room inside a border of " + borderOffset);
+        }
+        this.name = name;
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.walls = walls;
+
+        // Wall off the border, so heads stop at a wall before they can leave the grid
+        boolean inner = false;
+        for (int y = 0; y < gridSize; y++) {
+            for (int x = 0; x < gridSize; x++) {
+                int cell = y * gridSize + x;
+                if (x < borderOffset || x >= gridSize - borderOffset || y < borderOffset || y >= gridSize - borderOffset) {
+                    walls[cell >>> 6] |= 1L << cell;
+                } else if (wall(cell)) {
+                    inner = true;
+                }
+            }
+        }
+        obstacles = inner;
+
+        // The snake starts in the middle heading up
+        int start = (gridSize / 2) * gridSize + gridSize / 2;
+        if (wall(start) || wall(start - gridSize)) {
+            throw new IllegalArgumentException("Level " + name + " blocks the start in the middle of the grid");
+        }
+    }
+
+    /**
+     * Returns a level with no walls but the border.
+     */
+    static Level border(int gridSize, int borderOffset) {
+        return new Level("border", gridSize, borderOffset, new long[words(gridSize)]);
+    }
+
+    /**
+     * Builds a level from rows of text, '#' for a wall and any other character for an open cell.
+     * There must be as many rows as characters in each row.
+     */
+    static Level parse(String name, List<String> rows, int borderOffset) {
+        int gridSize = rows.size();
+        long[] walls = new long[words(gridSize)];
+        for (int y = 0; y < gridSize; y++) {
+            String row = rows.get(y);
+            if (row.length() != gridSize) {
+                throw new IllegalArgumentException("Row " + y + " of " + name + " is " + row.length()
+                        + " cells long, not " + gridSize);
+            }
+            for (int x = 0; x < gridSize; x++) {
+                if (row.charAt(x) == '#') {
+                    int cell = y * gridSize + x;
+                    walls[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        return new Level(name, gridSize, borderOffset, walls);
+    }
+
+    /**
+     * Loads a level file through a memory mapping.
+     */
+    static Level map(Path file, int borderOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.capacity() < HEADER_BYTES || map.getInt() != MAGIC) {
+                throw new IOException("Not a level file: " + file);
+            }
+            byte version = map.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported level version " + version + " in " + file);
+            }
+            int gridSize = map.getInt();
+            if (gridSize <= 0 || map.remaining() != (long) words(gridSize) * Long.BYTES) {
+                throw new IOException("Truncated level file: " + file);
+            }
+            // Copied out of the mapping once, so the bit tests of every tick read a plain array
+            long[] walls = new long[words(gridSize)];
+            map.asLongBuffer().get(walls);
+            return new Level(file.getFileName().toString(), gridSize, borderOffset, walls);
+        }
+    }
+
+    /**
+     * Writes the level file, replacing any existing one atomically.
+     */
+    void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + walls.length * Long.BYTES);
+        buffer.putInt(MAGIC).put(VERSION).putInt(gridSize);
+        buffer.asLongBuffer().put(walls);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    boolean wall(int cell) {
+        return (walls[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Returns whether there are walls inside the border, which renderers have to draw.
+     */
+    boolean hasObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Returns a copy of the wall bitmap, for code that adds its own cells to it.
+     */
+    long[] walls() {
+        return walls.clone();
+    }
+
+    String name() {
+        return name;
+    }
+
+    int gridSize() {
+        return gridSize;
+    }
+
+    int borderOffset() {
+        return borderOffset;
+    }
+
+    private static int words(int gridSize) {
+        return (gridSize * gridSize + 63) >>> 6;
+    }
+
+    /**
+     * Converts a text level to a level file.
+     * Usage: Level [text file] [level file] [border offset, default 2]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Level <text file> <level file> [border offset]");
+            System.exit(1);
+        }
+        Path text = Path.of(args[0]);
+        int borderOffset = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        Level level = parse(text.getFileName().toString(), Files.readAllLines(text), borderOffset);
+        level.write(Path.of(args[1]));
+        System.out.println("Wrote " + level.gridSize + "x" + level.gridSize + " level to " + args[1]);
+    }
+}
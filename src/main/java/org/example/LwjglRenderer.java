@@ -0,0 +1,205 @@
+package org.example;
+
+import org.lwjgl.nanovg.NVGColor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import static org.lwjgl.nanovg.NanoVG.*;
+import static org.lwjgl.nanovg.NanoVGGL3.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Renders with OpenGL for the board and NanoVG for text and buttons.
+ * Must be created and used on the thread that owns the current GL context.
+ * <p>
+ * Assets arrive as futures loading on other threads. Menus only wait for the
+ * font; the atlas and the board buffers are set up on the first game frame.
+ */
+public class LwjglRenderer implements Renderer {
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int borderSize; // Pixels for border width
+    private final int gridSize;
+    private final int borderOffset;
+    private final boolean chunked; // The grid is larger than the view, so the board is drawn by chunks
+    private final StartupProfile startup;
+
+    private long vg; // The NanoVG context handle
+    private ByteBuffer fontData; // Font file contents, which NanoVG reads until it is deleted
+    private final CompletableFuture<TextureAtlas> pendingAtlas;
+    private TextureAtlas atlas; // Null until the first game frame
+    private BoardBatch boardBatch; // Vertex buffer holding the border, food and snake; null until the first game frame
+    private final HudCache hud = new HudCache();
+    private final Camera camera;
+
+    /**
+     * @param viewSize Cells shown across the window; larger grids scroll with the head.
+     * @param font      Contents of the font file; the renderer frees them.
+     * @param atlas     Texture atlas holding the food, not yet uploaded; the renderer cleans it up.
+     */
+    public LwjglRenderer(int windowWidth, int windowHeight, int borderSize, int gridSize, int borderOffset,
+                         int viewSize, CompletableFuture<ByteBuffer> font, CompletableFuture<TextureAtlas> atlas,
+                         StartupProfile startup) {
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.borderSize = borderSize;
+        this.gridSize = gridSize;
+        this.borderOffset = borderOffset;
+        this.chunked = gridSize > viewSize;
+        this.camera = new Camera(viewSize);
+        this.pendingAtlas = atlas;
+        this.startup = startup;
+
+        // Initialize NanoVG
+        startup.run("NanoVG", () -> vg = nvgCreate(NVG_ANTIALIAS | NVG_STENCIL_STROKES));
+        if (vg == NULL) {
+            throw new RuntimeException("Could not init NanoVG.");
+        }
+        fontData = startup.time("Font wait", font::join);
+        startup.run("Font", this::createFont);
+
+        glClearColor(0.0f, 0.4f, 0.78f, 0.0f);
+    }
+
+    @Override
+    public void renderGame(BoardView board, String difficultyName, float alpha) {
+        if (boardBatch == null) {
+            startup.run("Board setup", this::initBoard);
+        }
+        camera.follow(board, alpha);
+        setupProjection(camera.cellsShown(board));
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+        nvgBeginFrame(vg, windowWidth, windowHeight, 1);
+        // Render the difficulty and score
+        renderDifficultyAndScore(board, difficultyName);
+        nvgEndFrame(vg);
+        boardBatch.render(board, alpha, atlas.texture(), camera);
+    }
+
+    @Override
+    public void renderMenu(Menu menu) {
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // Clear the screen
+
+        nvgBeginFrame(vg, windowWidth, windowHeight, 1); // Start a new frame for NanoVG
+
+        NVGColor color = hud.color; // Reuse the color object
+
+        int row = 0;
+        if (menu.title != null) {
+            renderCenteredText(menu.title, menu.rowY(row++), Menu.TITLE_SIZE, color);
+        }
+        for (String line : menu.lines) {
+            renderCenteredText(line, menu.rowY(row++), menu.lineSize, color);
+        }
+        for (Button button : menu.buttons) {
+            renderButton(button, color);
+        }
+
+        nvgEndFrame(vg); // End the frame
+    }
+
+    @Override
+    public void renderOverlay(String[] lines) {
+        nvgBeginFrame(vg, windowWidth, windowHeight, 1);
+        nvgFontSize(vg, 16);
+        nvgFontFace(vg, hud.fontFace);
+        nvgTextAlign(vg, NVG_ALIGN_LEFT | NVG_ALIGN_TOP);
+        nvgRGBA((byte)255, (byte)255, (byte)0, (byte)255, hud.color); // Yellow, to stand out from the HUD
+        nvgFillColor(vg, hud.color);
+        for (int i = 0; i < lines.length; i++) {
+            nvgText(vg, 8, 8 + i * 18, lines[i]);
+        }
+        nvgEndFrame(vg);
+    }
+
+    private void renderCenteredText(String text, float y, int fontSize, NVGColor color) {
+        nvgFontSize(vg, fontSize);
+        nvgFontFace(vg, hud.fontFace);
+        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
+        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, color); // White text color
+        nvgFillColor(vg, color);
+        nvgText(vg, windowWidth / 2.0f, y, text);
+    }
+
+    private void renderButton(Button button, NVGColor color) {
+        nvgBeginPath(vg);
+        nvgRect(vg, button.x, button.y, button.width, button.height);
+
+        // Set background color for the button
+        nvgRGBA((byte)25.5, (byte)178.5, (byte)25.5, (byte)255, color); // Light gray background
+
+        nvgFillColor(vg, color);
+        nvgFill(vg);
+
+        // Set text color
+        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, color); // Black text
+        nvgFillColor(vg, color);
+        nvgFontSize(vg, 20);
+        nvgFontFace(vg, hud.fontFace);
+        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
+        nvgText(vg, button.x + button.width / 2.0f, button.y + button.height / 2.0f, button.label);
+
+        nvgClosePath(vg);
+    }
+
+    private void createFont() {
+        // The font is read straight from the classpath resource; NanoVG keeps using the buffer
+        int font = nvgCreateFontMem(vg, "Poppins", fontData, false);
+        if (font == -1) {
+            throw new RuntimeException("Failed to create font from: " + Assets.FONT);
+        }
+    }
+
+    private void initBoard() {
+        atlas = pendingAtlas.join(); // Normally decoded while the menus were up
+        atlas.upload();
+        boardBatch = new BoardBatch(gridSize, borderOffset, chunked, atlas.region(Assets.FOOD_TEXTURE));
+    }
+
+    private void setupProjection(int cellsShown) {
+        glMatrixMode(GL_PROJECTION);
+        glLoadIdentity();
+        // Adjusting the projection to show the cells under the camera
+        glOrtho(camera.left(), camera.left() + cellsShown, camera.top() + cellsShown, camera.top(), -1.0f, 1.0f);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadIdentity();
+    }
+
+    private void renderDifficultyAndScore(BoardView board, String difficultyName) {
+        nvgFontSize(vg, 36.0f);
+        nvgFontFace(vg, hud.fontFace);
+        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
+
+        // Calculate positions
+        float scoreX = windowWidth / 2.0f;  // Center of the window
+        float scoreY = board.borderOffset() + (float) borderSize / 2; // Near the top of the window
+        float difficultyY = windowHeight - (board.borderOffset() + (float) borderSize / 2); // Near the bottom of the window
+
+        NVGColor textColor = hud.color;
+        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, textColor); // White color
+        nvgFillColor(vg, textColor);
+
+        // Draw Score and Difficulty from text that is only re-encoded when it changes
+        nvgText(vg, scoreX, scoreY, hud.scoreText(board.score()));
+        nvgText(vg, scoreX, difficultyY, hud.difficultyText(difficultyName));
+    }
+
+    @Override
+    public void cleanup() {
+        if (boardBatch != null) {
+            boardBatch.cleanup();
+        }
+        if (atlas == null) {
+            atlas = pendingAtlas.exceptionally(e -> null).join(); // Never shown, but its pixels are still held
+        }
+        if (atlas != null) {
+            atlas.cleanup();
+        }
+        nvgDelete(vg);
+        memFree(fontData);
+        hud.free();
+    }
+}
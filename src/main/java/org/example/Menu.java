@@ -0,0 +1,49 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A menu screen: an optional title, some lines of text and a column of buttons.
+ * Rows are laid out top to bottom around the middle of the window, so the
+ * renderers and the mouse handling agree on where every button is.
+ */
+public class Menu {
+    static final float LINE_HEIGHT = 68.0f;
+    static final int TITLE_SIZE = 48;
+    static final float BUTTON_WIDTH = 100;
+    static final float BUTTON_HEIGHT = 50;
+
+    final String title; // null for a menu without a title
+    final String[] lines;
+    final int lineSize; // Font size of the lines
+    final List<Button> buttons = new ArrayList<>();
+
+    private final float centerX;
+    private final float centerY;
+
+    public Menu(int windowWidth, int windowHeight, String title, int lineSize, String... lines) {
+        this.centerX = windowWidth / 2.0f;
+        this.centerY = windowHeight / 2.0f;
+        this.title = title;
+        this.lineSize = lineSize;
+        this.lines = lines;
+    }
+
+    Menu button(String label, Runnable action) {
+        int row = (title == null ? 0 : 1) + lines.length + buttons.size();
+        buttons.add(new Button(centerX - BUTTON_WIDTH / 2, rowY(row), BUTTON_WIDTH, BUTTON_HEIGHT, label, action));
+        return this;
+    }
+
+    /**
+     * Returns the vertical position of a row; the first row sits two rows above the middle.
+     */
+    float rowY(int row) {
+        return centerY + (row - 2) * LINE_HEIGHT;
+    }
+
+    float centerX() {
+        return centerX;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+/**
+ * Follows the shortest path to the food through a DistanceField, which is
+ * repaired incrementally as the snake moves instead of searched every tick.
+ * When the food cannot be reached it keeps to any move that does not end the
+ * game, going straight if it can, and waits for the tail to open a way.
+ */
+public class PathController implements Controller {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private DistanceField field; // Created for the first game, and again if the level changes
+
+    @Override
+    public Direction next(GameEngine game) {
+        if (field == null || field.level() != game.level()) {
+            field = new DistanceField(game.level());
+        }
+        field.update(game);
+
+        Snake snake = game.snake;
+        int gridSize = game.gridSize();
+        Direction best = null;
+        int bestDistance = DistanceField.UNREACHABLE;
+        Direction safe = null; // A move that survives, for when the food is out of reach
+        for (Direction direction : DIRECTIONS) {
+            if (direction == snake.direction.opposite()) {
+                continue;
+            }
+            int x = snake.headX() + direction.dx();
+            int y = snake.headY() + direction.dy();
+            if (game.blocked(x, y)) {
+                continue;
+            }
+            if (safe == null || direction == snake.direction) {
+                safe = direction;
+            }
+            int distance = field.distance(y * gridSize + x);
+            if (distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        return best != null ? best : safe; // Null when every move is fatal: keep going and lose
+    }
+}
@@ -0,0 +1,25 @@
+package org.example;
+
+/**
+ * Draws the game screens. SnakeGame decides what is shown and when;
+ * a renderer only turns that into pixels.
+ */
+public interface Renderer {
+    /**
+     * Draws the board with the score and difficulty.
+     * @param alpha Progress from the last tick towards the next one, used to slide the head and tail.
+     */
+    void renderGame(BoardView board, String difficultyName, float alpha);
+
+    void renderMenu(Menu menu);
+
+    /**
+     * Draws lines of diagnostic text over the current frame.
+     */
+    void renderOverlay(String[] lines);
+
+    /**
+     * Frees everything the renderer allocated.
+     */
+    void cleanup();
+}
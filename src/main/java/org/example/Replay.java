@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * A recorded game: everything needed to play it again, and the outcome to check it against.
+ * @param ticks      Tick each input was applied on, in increasing order.
+ * @param directions The input applied on the tick at the same index.
+ * @param endTick    Tick the recording stopped on.
+ * @param endState   State at endTick; PLAYING if the player left the game early.
+ */
+record Replay(Difficulty difficulty, int gridSize, int borderOffset, long seed,
+              long[] ticks, Direction[] directions, long endTick, int score, GameState endState) {
+
+    /*
+     * Binary layout, repeated for each replay in a file:
+     *   int MAGIC, byte VERSION, byte difficulty, varint gridSize, varint borderOffset, long seed
+     *   per input: varint (tick delta << 2 | direction), the delta counted from the previous input
+     *   varint 0, varlong endTick, varint score, byte endState
+     * Every input is on a later tick than the one before, so a delta of 0 ends the inputs.
+     */
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final byte VERSION = 1;
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Plays a replay back on a headless engine, either in time with a clock at any
+ * speed or as fast as possible to check that it reproduces the recorded outcome.
+ */
+public class ReplayPlayer {
+    private static final int MAX_TICKS_PER_ADVANCE = 1000; // Catch-up limit, as in the game loop
+
+    private final Replay replay;
+    final GameEngine engine;
+    private int nextInput; // Index of the next recorded input to apply
+    private FixedTimestep timestep; // Created on the first advance()
+
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        this.engine = new GameEngine(replay.gridSize(), replay.borderOffset(), new Rng(replay.seed()));
+    }
+
+    /**
+     * Checks whether every recorded tick has been played.
+     */
+    boolean finished() {
+        return engine.tick >= replay.endTick() || engine.state != GameState.PLAYING;
+    }
+
+    /**
+     * Plays one tick with the input recorded for it.
+     */
+    GameState step() {
+        Direction input = null;
+        if (nextInput < replay.ticks().length && replay.ticks()[nextInput] == engine.tick + 1) {
+            input = replay.directions()[nextInput++];
+        }
+        return engine.step(input);
+    }
+
+    /**
+     * Plays the ticks that are due at the given time.
+     * @param now   The current time in seconds.
+     * @param speed Multiple of the recorded difficulty's tick rate; 2 plays twice as fast.
+     * @return The number of ticks played.
+     */
+    int advance(double now, double speed) {
+        if (timestep == null) {
+            timestep = new FixedTimestep(replay.difficulty().secondsPerTick / speed, MAX_TICKS_PER_ADVANCE, now);
+            return 0;
+        }
+        int ticks = timestep.advance(now);
+        int played = 0;
+        while (played < ticks && !finished()) {
+            step();
+            played++;
+        }
+        return played;
+    }
+
+    /**
+     * Plays the rest of the replay without waiting.
+     * @return Whether the final tick, state and score match the recording.
+     */
+    boolean verify() {
+        while (!finished()) {
+            step();
+        }
+        return engine.tick == replay.endTick() && engine.state == replay.endState()
+                && engine.score == replay.score();
+    }
+
+    /**
+     * Usage: ReplayPlayer file...
+     * Verifies every replay in the given files as fast as possible.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        int replays = 0;
+        int mismatches = 0;
+        int truncated = 0;
+        int corrupt = 0;
+        for (String file : args) {
+            ReplayReader reader = ReplayReader.map(Path.of(file));
+            while (reader.hasNext()) {
+                Replay replay = reader.next();
+                if (replay == null && reader.damage() != null) {
+                    corrupt++;
+                    System.out.println("Skipped the rest of " + file + " from a damaged replay: " + reader.damage());
+                    break;
+                }
+                if (replay == null) {
+                    truncated++;
+                    System.out.println("Skipped the truncated last replay in " + file);
+                    break;
+                }
+                if (!new ReplayPlayer(replay).verify()) {
+                    mismatches++;
+                    System.out.println("Mismatch in " + file + ": seed " + replay.seed()
+                            + ", recorded score " + replay.score());
+                }
+                replays++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d replays verified in %.2f s (%.0f per minute), %d mismatches, %d truncated, %d corrupt%n",
+                replays, seconds, replays * 60 / seconds, mismatches, truncated, corrupt);
+    }
+}
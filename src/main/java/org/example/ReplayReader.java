@@ -0,0 +1,129 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads the replays stored one after another in a buffer, usually a memory-mapped file.
+ */
+public class ReplayReader {
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final GameState[] STATES = GameState.values();
+    private static final int MAX_GRID_SIZE = 4096; // Largest grid the game plays on
+
+    private final ByteBuffer buffer;
+    private String damage; // Why the last replay could not be read, or null
+
+    // Reused between replays and trimmed to size for each one
+    private long[] ticks = new long[64];
+    private Direction[] directions = new Direction[64];
+
+    public ReplayReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a replay file into memory; the mapping stays valid after the channel is closed.
+     */
+    static ReplayReader map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    boolean hasNext() {
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Reads the next replay.
+     * @return The replay, or null if the buffer ends partway through it, as it does when
+     *         the game crashed while recording, or if the replay is damaged; damage() tells
+     *         which. The reader is then at the end of the buffer, since after a damaged
+     *         record there is no telling where the next replay starts.
+     */
+    Replay next() {
+        damage = null;
+        try {
+            return read();
+        } catch (BufferUnderflowException e) {
+            // Truncated
+        } catch (IllegalStateException e) {
+            damage = e.getMessage();
+        }
+        buffer.position(buffer.limit());
+        return null;
+    }
+
+    /**
+     * Returns why next() last returned null for a damaged replay, or null if it was truncated.
+     */
+    String damage() {
+        return damage;
+    }
+
+    private Replay read() {
+        if (buffer.getInt() != Replay.MAGIC) {
+            throw new IllegalStateException("Not a replay at offset " + (buffer.position() - 4));
+        }
+        byte version = buffer.get();
+        if (version != Replay.VERSION) {
+            throw new IllegalStateException("Unsupported replay version " + version);
+        }
+        Difficulty difficulty = DIFFICULTIES[index(buffer.get(), DIFFICULTIES.length, "difficulty")];
+        long gridSize = readVarLong();
+        long borderOffset = readVarLong();
+        if (gridSize > MAX_GRID_SIZE || gridSize <= 2 * borderOffset + 1) {
+            throw new IllegalStateException("Invalid grid of " + gridSize + " cells with a border of " + borderOffset);
+        }
+        long seed = buffer.getLong();
+
+        int count = 0;
+        long tick = 0;
+        for (long event = readVarLong(); event != 0; event = readVarLong()) {
+            if (count == ticks.length) {
+                ticks = Arrays.copyOf(ticks, count * 2);
+                directions = Arrays.copyOf(directions, count * 2);
+            }
+            tick += event >>> 2;
+            ticks[count] = tick;
+            directions[count] = DIRECTIONS[(int) (event & 3)];
+            count++;
+        }
+        long endTick = readVarLong();
+        long score = readVarLong();
+        if (score > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Invalid score " + score);
+        }
+        GameState endState = STATES[index(buffer.get(), STATES.length, "end state")];
+        return new Replay(difficulty, (int) gridSize, (int) borderOffset, seed, Arrays.copyOf(ticks, count),
+                Arrays.copyOf(directions, count), endTick, (int) score, endState);
+    }
+
+    private static int index(byte value, int count, String name) {
+        if (value < 0 || value >= count) {
+            throw new IllegalStateException("Unknown " + name + " " + value);
+        }
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= Long.SIZE) {
+                throw new IllegalStateException("Varint longer than a long at offset " + buffer.position());
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
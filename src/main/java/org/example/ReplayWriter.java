@@ -0,0 +1,101 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records games in the Replay format through a buffered stream.
+ * Several games may be written one after another to the same stream.
+ */
+public class ReplayWriter implements Closeable {
+    private final OutputStream out;
+    private long lastTick; // Tick of the previous input in the current game
+    private boolean recording;
+
+    public ReplayWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 8192);
+    }
+
+    /**
+     * Starts recording a game that was created with the given seed.
+     */
+    void begin(Difficulty difficulty, int gridSize, int borderOffset, long seed) {
+        if (recording) {
+            throw new IllegalStateException("A game is already being recorded");
+        }
+        try {
+            writeInt(Replay.MAGIC);
+            out.write(Replay.VERSION);
+            out.write(difficulty.ordinal());
+            writeVarLong(gridSize);
+            writeVarLong(borderOffset);
+            writeLong(seed);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write replay", e);
+        }
+        lastTick = 0;
+        recording = true;
+    }
+
+    /**
+     * Records the input passed to GameEngine.step() on the given tick (engine.tick + 1 before the call).
+     */
+    void input(long tick, Direction direction) {
+        if (!recording || tick <= lastTick) {
+            throw new IllegalStateException("Inputs must be recorded once per tick, in order");
+        }
+        try {
+            writeVarLong((tick - lastTick) << 2 | direction.ordinal());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write replay", e);
+        }
+        lastTick = tick;
+    }
+
+    /**
+     * Ends the current game with the engine's outcome and pushes it out of the buffer.
+     */
+    void end(GameEngine engine) {
+        if (!recording) {
+            throw new IllegalStateException("No game is being recorded");
+        }
+        try {
+            writeVarLong(0);
+            writeVarLong(engine.tick);
+            writeVarLong(engine.score);
+            out.write(engine.state.ordinal());
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write replay", e);
+        }
+        recording = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        // Seven bits per byte, lowest first; the high bit marks that more bytes follow
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+/**
+ * A small seeded random number generator (SplitMix64).
+ * The whole state is a single long, so a game driven by it can be replayed
+ * from its seed and its state can be saved and restored exactly.
+ */
+public class Rng {
+    static final long GAMMA = 0x9E3779B97F4A7C15L; // Added to the state on every draw
+
+    private long state;
+
+    public Rng(long seed) {
+        this.state = seed;
+    }
+
+    long nextLong() {
+        return mix(state += GAMMA);
+    }
+
+    /**
+     * Returns a uniformly distributed value between 0 (inclusive) and bound (exclusive).
+     */
+    int nextInt(int bound) {
+        return bounded(nextLong(), bound);
+    }
+
+    /**
+     * Scrambles a state into the output value; exposed so BulkEngine can keep its
+     * generator states in a plain long array.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Maps a random value onto 0 (inclusive) to bound (exclusive).
+     */
+    static int bounded(long random, int bound) {
+        return (int) (((random >>> 32) * bound) >>> 32);
+    }
+
+    long state() {
+        return state;
+    }
+
+    /**
+     * Puts the generator back to a state returned by state().
+     */
+    void restore(long state) {
+        this.state = state;
+    }
+}
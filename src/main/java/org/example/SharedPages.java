@@ -0,0 +1,69 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Takes copies of an int array that changes in only a few slots between copies.
+ * The array is split into pages and the owner marks each page it writes to; a
+ * copy takes only the pages marked since the last copy and shares the others
+ * with it. Copied pages are never written again, so every copy stays valid.
+ * Pages hold about the square root of the array, which keeps the page table
+ * each copy needs no larger than a page.
+ */
+public class SharedPages {
+    private final int[] array;
+    private final int pageBits;
+    private final int pageCount;
+    private final long[] dirty; // One bit per page, set when it changed since the last copy
+    private int[][] last; // The last copy taken or restored, or null
+
+    public SharedPages(int[] array) {
+        this.array = array;
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(array.length - 1, 1));
+        this.pageBits = Math.max(5, (bits + 1) / 2);
+        this.pageCount = (array.length + (1 << pageBits) - 1) >>> pageBits;
+        this.dirty = new long[(pageCount + 63) >>> 6];
+        Arrays.fill(dirty, -1L);
+    }
+
+    /**
+     * Marks the page of a slot the owner wrote to.
+     */
+    void mark(int index) {
+        int page = index >>> pageBits;
+        dirty[page >>> 6] |= 1L << page;
+    }
+
+    /**
+     * Returns the pages of the array as it is now, sharing unchanged pages with the last copy.
+     */
+    int[][] copy() {
+        int[][] pages = last == null ? new int[pageCount][] : last.clone();
+        for (int word = 0; word < dirty.length; word++) {
+            for (long bits = dirty[word]; bits != 0; bits &= bits - 1) {
+                int page = word << 6 | Long.numberOfTrailingZeros(bits);
+                if (page < pageCount) {
+                    int from = page << pageBits;
+                    pages[page] = Arrays.copyOfRange(array, from, Math.min(from + (1 << pageBits), array.length));
+                }
+            }
+            dirty[word] = 0;
+        }
+        last = pages;
+        return pages;
+    }
+
+    /**
+     * Writes a copy back into the array. The copy may come from any array of the same length.
+     */
+    void restore(int[][] pages) {
+        if (pages.length != pageCount) {
+            throw new IllegalArgumentException("Expected " + pageCount + " pages, got " + pages.length);
+        }
+        for (int page = 0; page < pageCount; page++) {
+            System.arraycopy(pages[page], 0, array, page << pageBits, pages[page].length);
+        }
+        Arrays.fill(dirty, 0);
+        last = pages;
+    }
+}
@@ -0,0 +1,225 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs one game on its own thread at the difficulty's tick rate, so a slow
+ * frame never delays a tick. After every tick the board is copied into a
+ * BoardSnapshot and published through a TripleBuffer for the render thread.
+ * <p>
+ * The renderer may skip snapshots, but it must still see every chunk the body
+ * changed in. The simulation therefore keeps, for each of the three buffers,
+ * the chunk marks made since that buffer was last published and adds them to
+ * it on the next publish.
+ * <p>
+ * A snapshot of the engine is kept for each of the last REWIND_SECONDS of
+ * ticks, so rewind() can take the game back that far.
+ */
+public class Simulation {
+    private static final int MAX_TICKS_BEHIND = 5; // Catch-up limit after a stall, as in the old frame loop
+    private static final double REWIND_SECONDS = 3;
+
+    final GameEngine engine;
+    private final Difficulty difficulty;
+    private final long tickNanos;
+    private final InputQueue inputs;
+    private final HighScoreStore highScores;
+    private final FrameMetrics metrics;
+    private final Controller autopilot; // Steers in place of the player, or null
+    private ReplayWriter replay; // Recording of the game, or null; ended by whichever thread finishes the game
+
+    private final TripleBuffer<BoardSnapshot> snapshots;
+    private final ChunkGrid[] pendingChunks = new ChunkGrid[3]; // Simulation thread only
+    private final long[] pendingPresses = new long[3]; // Simulation thread only
+    private final GameSnapshot[] history; // Snapshot of tick t in slot t % length; simulation thread only
+    private volatile boolean rewindRequested;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * @param replay    Recording to feed with the inputs and end with the game, or null.
+     * @param autopilot Controller that steers instead of the key presses, or null.
+     */
+    public Simulation(GameEngine engine, Difficulty difficulty, InputQueue inputs, ReplayWriter replay,
+                      HighScoreStore highScores, FrameMetrics metrics, Controller autopilot) {
+        this.engine = engine;
+        this.difficulty = difficulty;
+        this.tickNanos = (long) (difficulty.secondsPerTick * 1e9);
+        this.inputs = inputs;
+        this.replay = replay;
+        this.highScores = highScores;
+        this.metrics = metrics;
+        this.autopilot = autopilot;
+
+        int gridSize = engine.gridSize();
+        snapshots = new TripleBuffer<>(() -> new BoardSnapshot(gridSize, engine.borderOffset()));
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            snapshots.get(i).copyFrom(engine, now);
+            pendingChunks[i] = new ChunkGrid(gridSize);
+            pendingChunks[i].cleanAll();
+        }
+        engine.chunks.cleanAll(); // Every snapshot starts with all chunks marked
+        history = new GameSnapshot[(int) Math.ceil(REWIND_SECONDS / difficulty.secondsPerTick) + 1];
+        history[(int) (engine.tick % history.length)] = engine.snapshot();
+
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Returns the latest snapshot; call from the render thread only.
+     * It stays unchanged until the next call.
+     */
+    BoardSnapshot latest() {
+        return snapshots.acquire();
+    }
+
+    /**
+     * Seconds between ticks, for interpolating between snapshots.
+     */
+    double secondsPerTick() {
+        return difficulty.secondsPerTick;
+    }
+
+    /**
+     * Asks the simulation to take the game back REWIND_SECONDS, or to its start
+     * if it is younger; done in place of the next tick. Ignored once the game is over.
+     */
+    void rewind() {
+        rewindRequested = true;
+    }
+
+    /**
+     * Stops the thread and waits for it, ending the recording if the game was left early.
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        endReplay();
+    }
+
+    private void run() {
+        inputs.clear(); // Presses made before the game started are not part of it
+        long nextTick = System.nanoTime() + tickNanos;
+        long lastTickStart = -1;
+        while (running && engine.state == GameState.PLAYING) {
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            if (lastTickStart != -1) {
+                metrics.tickInterval(now - lastTickStart);
+            }
+            lastTickStart = now;
+
+            tick();
+            long end = System.nanoTime();
+            metrics.tick(now, end);
+            publish(now);
+
+            // Ticks are scheduled on a fixed grid, so jitter in one wake-up does not shift the next
+            nextTick += tickNanos;
+            if (end - nextTick > MAX_TICKS_BEHIND * tickNanos) {
+                nextTick = end; // Too far behind to catch up: carry on from now
+            }
+        }
+    }
+
+    private void tick() {
+        if (rewindRequested) {
+            rewindRequested = false;
+            restore();
+        } else {
+            step();
+        }
+
+        for (ChunkGrid pending : pendingChunks) {
+            pending.markAll(engine.chunks);
+        }
+        engine.chunks.cleanAll();
+
+        if (engine.state != GameState.PLAYING) {
+            endReplay();
+            highScores.submit(difficulty, engine.score); // Saved by a background thread
+        } else {
+            history[(int) (engine.tick % history.length)] = engine.snapshot();
+        }
+    }
+
+    private void step() {
+        if (autopilot != null) {
+            inputs.clear(); // Presses are ignored, but must not fill the queue
+        }
+        // One turn per tick; quick presses in a row are spread over the following ticks
+        Direction input = autopilot != null ? autopilot.next(engine) : inputs.pollTurn(engine.snake.direction);
+        if (input != null && autopilot == null) {
+            long pressTime = inputs.turnPressTime();
+            for (int i = 0; i < 3; i++) {
+                pendingPresses[i] = pressTime;
+            }
+        }
+        // Inputs are recorded on the tick they take effect, which is what a replay needs
+        if (replay != null && input != null) {
+            replay.input(engine.tick + 1, input);
+        }
+        engine.step(input);
+    }
+
+    /**
+     * Restores the oldest snapshot left in the history, and drops the snapshots of the ticks after it.
+     */
+    private void restore() {
+        // The recording ends where the game is now; what follows a rewind is not a replay of it
+        endReplay();
+        inputs.clear(); // Presses made before the rewind were meant for the later board
+        for (long t = Math.max(0, engine.tick - (history.length - 1)); t <= engine.tick; t++) {
+            // A slot may still hold a tick of a future an earlier rewind went back from
+            GameSnapshot snapshot = history[(int) (t % history.length)];
+            if (snapshot != null && snapshot.tick() == t) {
+                engine.restore(snapshot);
+                break;
+            }
+        }
+        for (int i = 0; i < history.length; i++) {
+            if (history[i] != null && history[i].tick() > engine.tick) {
+                history[i] = null;
+            }
+        }
+    }
+
+    private void publish(long tickTime) {
+        int index = snapshots.backIndex();
+        BoardSnapshot snapshot = snapshots.back();
+        snapshot.copyFrom(engine, tickTime);
+        snapshot.chunks().markAll(pendingChunks[index]);
+        pendingChunks[index].cleanAll();
+        snapshot.turnPressTime = pendingPresses[index];
+        pendingPresses[index] = 0;
+        snapshots.publish();
+    }
+
+    private void endReplay() {
+        if (replay == null) {
+            return;
+        }
+        try (ReplayWriter writer = replay) {
+            replay = null;
+            writer.end(engine);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close replay file", e);
+        }
+    }
+}
@@ -1,32 +1,169 @@
 package org.example;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 public class Snake {
-    LinkedList<Point> body = new LinkedList<>();
     Direction direction = Direction.RIGHT; // Default direction
 
-    public Snake(int initialX, int initialY) {
-        body.add(new Point(initialX, initialY));
+    private final int gridSize;
+    private final long[] occupied; // One bit per grid cell, set while a segment covers it
+
+    // Body cells packed as y * gridSize + x, stored oldest (tail) to newest (head)
+    private final int[] cells;
+    private SharedPages pages; // Copies of cells for snapshots
+    private int head; // Index of the head cell in cells
+    private int length;
+    private int lastTail = -1; // Cell vacated by the last move, or -1 if the last tick grew
+
+    public Snake(int gridSize, int initialX, int initialY) {
+        this.gridSize = gridSize;
+        this.occupied = new long[(gridSize * gridSize + 63) >>> 6];
+        this.cells = new int[gridSize * gridSize]; // The body can never exceed the grid
+        cells[0] = pack(initialX, initialY);
+        length = 1;
+        occupy(cells[0]);
     }
 
-    void grow(Point newHead) {
+    void grow(int x, int y) {
         // Add a new head in the direction of movement
-        body.addFirst(newHead);
+        head = head + 1 == cells.length ? 0 : head + 1;
+        cells[head] = pack(x, y);
+        if (pages != null) {
+            pages.mark(head);
+        }
+        length++;
+        occupy(cells[head]);
+        lastTail = -1;
+    }
+
+    /**
+     * Moves the head to the given cell and drops the tail.
+     * @return The packed cell the tail vacated.
+     */
+    int move(int x, int y) {
+        // Free the tail first so a head moving into the old tail cell stays marked
+        int tail = cells[tailIndex()];
+        release(tail); // Remove the tail
+        length--;
+        grow(x, y); // Add a new head
+        lastTail = tail;
+        return tail;
+    }
+
+    int nextHeadX() {
+        return headX() + direction.dx();
+    }
+
+    int nextHeadY() {
+        return headY() + direction.dy();
+    }
+
+    int length() {
+        return length;
+    }
+
+    int headX() {
+        return cells[head] % gridSize;
+    }
+
+    int headY() {
+        return cells[head] / gridSize;
+    }
+
+    /**
+     * Returns the packed cell of a body segment.
+     * @param i Segment number, counted from the head (0) to the tail (length - 1).
+     */
+    int segment(int i) {
+        int index = head - i;
+        return index < 0 ? cells[index + cells.length] : cells[index];
+    }
+
+    int segmentX(int i) {
+        return segment(i) % gridSize;
+    }
+
+    int segmentY(int i) {
+        return segment(i) / gridSize;
+    }
+
+    /**
+     * Returns the packed cell the tail left on the last tick, or -1 if the snake grew instead.
+     */
+    int lastTail() {
+        return lastTail;
+    }
+
+    /**
+     * Checks whether a segment currently covers the given cell.
+     * Cells outside the grid are never occupied.
+     */
+    boolean occupies(int x, int y) {
+        if (x < 0 || x >= gridSize || y < 0 || y >= gridSize) {
+            return false;
+        }
+        int cell = pack(x, y);
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Checks whether moving the head to the given cell hits the body.
+     * @param growing Whether the tail stays in place this tick (the snake is eating).
+     *                When it does not, the old tail cell is vacated and is safe to enter.
+     */
+    boolean collidesWith(int x, int y, boolean growing) {
+        if (!occupies(x, y)) {
+            return false;
+        }
+        return growing || cells[tailIndex()] != pack(x, y);
+    }
+
+    /**
+     * Copies the cell ring for a snapshot; together with headIndex(), length(),
+     * lastTail() and the direction it is the whole snake.
+     */
+    int[][] copyCells() {
+        if (pages == null) {
+            pages = new SharedPages(cells); // Games without snapshots do not track pages
+        }
+        return pages.copy();
+    }
+
+    int headIndex() {
+        return head;
+    }
+
+    /**
+     * Puts the snake back into the state of a snapshot; the direction is set separately.
+     */
+    void restore(int[][] cellPages, int head, int length, int lastTail) {
+        if (pages == null) {
+            pages = new SharedPages(cells);
+        }
+        pages.restore(cellPages);
+        this.head = head;
+        this.length = length;
+        this.lastTail = lastTail;
+        Arrays.fill(occupied, 0);
+        for (int i = 0; i < length; i++) {
+            occupy(segment(i));
+        }
+    }
+
+    private int tailIndex() {
+        int index = head - length + 1;
+        return index < 0 ? index + cells.length : index;
+    }
+
+    private int pack(int x, int y) {
+        return y * gridSize + x;
     }
 
-    void move(Point newHead) {
-        grow(newHead); // Add a new head
-        body.removeLast(); // Remove the tail
+    private void occupy(int cell) {
+        occupied[cell >>> 6] |= 1L << cell;
     }
 
-    Point getNewHead() {
-        Point head = body.getFirst();
-        return switch (direction) {
-            case UP -> new Point(head.x, head.y - 1);
-            case DOWN -> new Point(head.x, head.y + 1);
-            case LEFT -> new Point(head.x - 1, head.y);
-            case RIGHT -> new Point(head.x + 1, head.y);
-        };
+    private void release(int cell) {
+        occupied[cell >>> 6] &= ~(1L << cell);
     }
 }
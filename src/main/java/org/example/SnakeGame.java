@@ -1,66 +1,60 @@
 package org.example;
 
-import org.lwjgl.nanovg.NVGColor;
 import org.lwjgl.opengl.*;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.example.Direction.*;
 import static org.lwjgl.glfw.Callbacks.glfwFreeCallbacks;
 import static org.lwjgl.glfw.GLFW.*;
-import static org.lwjgl.glfw.GLFW.glfwCreateWindow;
-import static org.lwjgl.glfw.GLFW.glfwDestroyWindow;
-import static org.lwjgl.glfw.GLFW.glfwInit;
-import static org.lwjgl.glfw.GLFW.glfwMakeContextCurrent;
-import static org.lwjgl.glfw.GLFW.glfwPollEvents;
-import static org.lwjgl.glfw.GLFW.glfwShowWindow;
-import static org.lwjgl.glfw.GLFW.glfwSwapBuffers;
-import static org.lwjgl.glfw.GLFW.glfwSwapInterval;
-import static org.lwjgl.glfw.GLFW.glfwTerminate;
-import static org.lwjgl.glfw.GLFW.glfwWindowShouldClose;
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
-import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
-import static org.lwjgl.opengl.GL11.glClear;
-import static org.lwjgl.opengl.GL11.glClearColor;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
-import static org.lwjgl.nanovg.NanoVG.*;
-import static org.lwjgl.nanovg.NanoVGGL3.*;
-
 public class SnakeGame {
     private static final int WINDOW_WIDTH = 900;
     private static final int WINDOW_HEIGHT = 900;
     private static final int BORDER_SIZE = 60; // Pixels for border width
-    private static final int GRID_SIZE = 30; // The size of the grid for the snake game
+    private static final int VIEW_SIZE = 30; // Cells shown across the window
+    private static final int MAX_GRID_SIZE = 4096;
 
     private static final int BORDER_OFFSET =
-            BORDER_SIZE / (WINDOW_WIDTH / GRID_SIZE); // Border offset in grid cells
+            BORDER_SIZE / (WINDOW_WIDTH / VIEW_SIZE); // Border offset in grid cells
 
-    // Updates per second
-    private static final double EASY = 0.1;
-    private static final double MEDIUM = 0.07;
-    private static final double HARD = 0.05;
+    private static final boolean PRINT_METRICS = Boolean.getBoolean("snake.metrics"); // Print them on exit
+    private static final boolean AUTOPILOT = Boolean.getBoolean("snake.autopilot"); // For demos and soak tests
 
-    private Snake snake;
-    private Point food;
-    private long window;
-    private int score;
+    // The walls of every game, from -Dsnake.level or just the border
+    private final Level level = levelSetting();
+    // The size of the grid for the snake game; larger than VIEW_SIZE the view scrolls with the snake
+    private final int gridSize = level.gridSize();
 
-    private long vg; // The NanoVG context handle
+    private Simulation simulation; // The current or last game, ticking on its own thread
+    private final InputQueue inputs = new InputQueue(16); // Arrow key presses not yet applied by a tick
+    private long window;
+    private Renderer renderer;
 
-    private List<Button> buttons;
+    private Menu menu; // The menu on screen, whose buttons receive clicks
+    private final Map<GameState, Menu> menus = new EnumMap<>(GameState.class); // Menus that never change
     private GameState gameState;
-    private double difficulty; // EASY, MEDIUM, HARD
+    private Difficulty difficulty;
+
+    private GameState renderedState; // State shown by the last frame, null before the first one
+    private boolean menuExposed; // The window needs a redraw even though the menu is unchanged
+    private final CpuUsage menuCpuUsage = new CpuUsage();
+    private final AllocationMeter frameAllocations = new AllocationMeter();
+    private final FrameMetrics metrics = new FrameMetrics();
+    private boolean showMetrics; // Toggled with F3
+    private final StartupProfile startup = new StartupProfile();
 
-    private int foodTexture;
+    // Directory each game is recorded to when -Dsnake.replayDir is set, otherwise null
+    private final Path replayDir = replayDirSetting(level);
+    private HighScoreStore highScores;
 
     public SnakeGame() {
         mainMenu();
@@ -68,7 +62,6 @@ public class SnakeGame {
 
     private void mainMenu() {
         gameState = GameState.MAIN_MENU;
-        buttons = new ArrayList<>();
     }
 
     private void help() {
@@ -79,28 +72,16 @@ public class SnakeGame {
         gameState = GameState.DIFFICULTY_MENU;
     }
 
-    private void play(double difficultyValue) {
-        // Initialize the snake in the middle of the screen
-        difficulty = difficultyValue;
+    private void play(Difficulty difficulty) {
+        // Start a new game with the snake in the middle of the screen
+        stopSimulation();
+        this.difficulty = difficulty;
         gameState = GameState.PLAYING;
-        snake = new Snake(GRID_SIZE / 2, GRID_SIZE / 2);
-        snake.direction = UP;
-        score = 0;
-        spawnFood();
-    }
-
-    private void spawnFood() {
-        int minX = BORDER_OFFSET;
-        int maxX = GRID_SIZE - BORDER_OFFSET - 1;
-        int minY = BORDER_OFFSET; // Starts food spawning at the top border
-        int maxY = GRID_SIZE - BORDER_OFFSET - 1;
-
-        Point potentialFood;
-        do {
-            potentialFood = new Point(minX + (int) (Math.random() * (maxX - minX + 1)),
-                    minY + (int) (Math.random() * (maxY - minY + 1)));
-        } while (snake.body.contains(potentialFood));
-        food = potentialFood;
+        long seed = System.nanoTime();
+        GameEngine engine = new GameEngine(level, new Rng(seed));
+        simulation = new Simulation(engine, difficulty, inputs, startReplay(seed), highScores, metrics,
+                AUTOPILOT ? new PathController() : null);
+        simulation.start();
     }
 
     public void run() {
@@ -110,8 +91,20 @@ public class SnakeGame {
     }
 
     private void init() {
+        // Read the assets and register the metrics on other threads while the window comes up
+        Path cacheDir = cacheDirSetting();
+        CompletableFuture<ByteBuffer> font = background("Font read", () -> Assets.readResource(Assets.FONT));
+        CompletableFuture<TextureAtlas> atlas = background("Atlas load",
+                () -> TextureAtlas.load(cacheDir.resolve("atlas.bin"), Assets.FOOD_TEXTURE));
+        CompletableFuture<Void> metricsRegistered = background("Metrics registration", () -> {
+            metrics.register(); // Starting the platform MBean server takes a while
+            return null;
+        });
+
+        highScores = startup.time("High scores", () -> new HighScoreStore(scoreDirSetting()));
+
         // Initialize GLFW
-        if (!glfwInit()) {
+        if (!startup.time("GLFW init", () -> glfwInit())) {
             throw new IllegalStateException("Unable to initialize GLFW");
         }
 
@@ -119,7 +112,7 @@ public class SnakeGame {
         glfwWindowHint(GLFW_RESIZABLE, GLFW_FALSE);
 
         // Create the window
-        window = glfwCreateWindow(WINDOW_WIDTH, WINDOW_HEIGHT, "Snake Game", NULL, NULL);
+        window = startup.time("Window", () -> glfwCreateWindow(WINDOW_WIDTH, WINDOW_HEIGHT, "Snake Game", NULL, NULL));
         if (window == NULL) {
             throw new RuntimeException("Failed to create the GLFW window");
         }
@@ -127,25 +120,25 @@ public class SnakeGame {
         // Setup a key callback
         glfwSetKeyCallback(window, (window, key, scancode, action, mods) -> {
             if (action == GLFW_PRESS) {
+                long pressTime = System.nanoTime();
                 switch (key) {
-                    case GLFW_KEY_UP -> {
-                        if (snake.direction != Direction.DOWN) snake.direction = Direction.UP;
-                    }
-                    case GLFW_KEY_DOWN -> {
-                        if (snake.direction != Direction.UP) snake.direction = DOWN;
-                    }
-                    case GLFW_KEY_LEFT -> {
-                        if (snake.direction != RIGHT) snake.direction = LEFT;
-                    }
-                    case GLFW_KEY_RIGHT -> {
-                        if (snake.direction != LEFT) snake.direction = RIGHT;
-                    }
+                    case GLFW_KEY_UP -> inputs.offer(UP, pressTime);
+                    case GLFW_KEY_DOWN -> inputs.offer(DOWN, pressTime);
+                    case GLFW_KEY_LEFT -> inputs.offer(LEFT, pressTime);
+                    case GLFW_KEY_RIGHT -> inputs.offer(RIGHT, pressTime);
+                    case GLFW_KEY_F3 -> showMetrics = !showMetrics;
                     case GLFW_KEY_R ->  {
-                        if(gameState == GameState.PLAYING || gameState == GameState.GAME_OVER) {
+                        if(gameState == GameState.PLAYING || gameState == GameState.GAME_OVER
+                                || gameState == GameState.WON) {
                             restart();
                         }
                     }
-                    case GLFW_KEY_Q -> System.exit(0);
+                    case GLFW_KEY_BACKSPACE -> {
+                        if (gameState == GameState.PLAYING) {
+                            simulation.rewind();
+                        }
+                    }
+                    case GLFW_KEY_Q -> quit();
                 }
             }
         });
@@ -155,307 +148,252 @@ public class SnakeGame {
                 double[] mouseX = new double[1];
                 double[] mouseY = new double[1];
                 glfwGetCursorPos(window, mouseX, mouseY);
-                for (Button b : buttons) {
-                    if (!(gameState == GameState.PLAYING) && b.isMouseOver((int) mouseX[0], (int) mouseY[0])) {
+                if (gameState == GameState.PLAYING || menu == null) {
+                    return;
+                }
+                for (Button b : menu.buttons) {
+                    if (b.isMouseOver((int) mouseX[0], (int) mouseY[0])) {
                         b.action.run();
+                        break;
                     }
-
                 }
             }
         });
+        // Redraw a menu when the window contents are damaged
+        glfwSetWindowRefreshCallback(window, window -> menuExposed = true);
+
         // Make the OpenGL context current
         glfwMakeContextCurrent(window);
 
-        GL.createCapabilities();
+        startup.run("GL capabilities", GL::createCapabilities);
 
-        foodTexture = TextureLoader.loadTexture("/textures/apple.png");
+        // Waits for the font only; the atlas is uploaded when the first game starts
+        renderer = new LwjglRenderer(WINDOW_WIDTH, WINDOW_HEIGHT, BORDER_SIZE, gridSize, BORDER_OFFSET,
+                VIEW_SIZE, font, atlas, startup);
 
-        // Initialize NanoVG
-        initNanoVG();
         // Enable v-sync
         glfwSwapInterval(1);
 
         // Make the window visible
-        glfwShowWindow(window);
+        startup.run("Show window", () -> glfwShowWindow(window));
+        metricsRegistered.join(); // Rethrows a failure here rather than losing it
     }
 
-    private void loop() {
-        glClearColor(0.0f, 0.4f, 0.78f, 0.0f);
-
-        // Initialize the last update time variable
-        double lastUpdateTime = glfwGetTime();
+    /**
+     * Runs a startup phase on a thread of its own.
+     */
+    private <T> CompletableFuture<T> background(String phase, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> startup.time(phase, task), runnable -> {
+            Thread thread = new Thread(runnable, "startup-" + phase.toLowerCase().replace(' ', '-'));
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
 
+    private void loop() {
         while (!glfwWindowShouldClose(window)) {
-            double currentTime = glfwGetTime();
-            double deltaTime = currentTime - lastUpdateTime;
-
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // Clear the framebuffer
-
-            switch (gameState) {
-                case PLAYING -> {
-                    renderGame();
-
-                    if (deltaTime >= difficulty) {
-                        update();
-                        lastUpdateTime = currentTime;
-                    }
-                }
-
-                case MAIN_MENU -> {
-                    renderMainMenu();
-                    while (gameState == GameState.MAIN_MENU && !glfwWindowShouldClose(window)) {
-                        glfwPollEvents(); // Keep the window responsive
-                    }
+            if (gameState == GameState.PLAYING) {
+                if (renderedState != GameState.PLAYING) {
+                    showState(GameState.PLAYING);
+                    frameAllocations.reset();
+                    metrics.pause();
                 }
-
-                case HELP -> {
-                    renderHelpScreen();
-                    while (gameState == GameState.HELP && !glfwWindowShouldClose(window)) {
-                        glfwPollEvents(); // Keep the window responsive
-                    }
+                // The simulation thread ticks on its own; draw the latest board it published
+                BoardSnapshot board = simulation.latest();
+                if (board.state != GameState.PLAYING) {
+                    gameState = board.state;
+                    stopSimulation();
+                    continue;
                 }
-                case DIFFICULTY_MENU -> {
-                    renderDifficultyMenu();
-                    while (gameState == GameState.DIFFICULTY_MENU && !glfwWindowShouldClose(window)) {
-                        glfwPollEvents(); // Keep the window responsive
-                    }
+                metrics.turnApplied(board.turnPressTime);
+
+                long renderStart = System.nanoTime();
+                // Progress towards the next tick, from the time this board was ticked
+                float alpha = (float) Math.min(1, (renderStart - board.tickTime) / 1e9 / simulation.secondsPerTick());
+                renderer.renderGame(board, getDifficultyName(), alpha);
+                if (showMetrics) {
+                    renderer.renderOverlay(metrics.overlay());
                 }
+                metrics.rendered(renderStart, System.nanoTime());
 
-                case GAME_OVER -> {
-                    renderGameOver();
-                    while (gameState == GameState.GAME_OVER && !glfwWindowShouldClose(window)) {
-                        glfwPollEvents(); // Keep the window responsive
-                    }
-                }
+                glfwSwapBuffers(window); // Swap the color buffers
+                metrics.frameShown(System.nanoTime());
+                glfwPollEvents();
+                frameAllocations.frame();
+                continue;
             }
 
-            glfwSwapBuffers(window); // Swap the color buffers
-            glfwPollEvents();
+            // Menus only change in response to input, so draw once and sleep until an event arrives
+            if (gameState != renderedState || menuExposed) {
+                showState(gameState);
+                menuExposed = false;
+                menu = gameState == GameState.GAME_OVER || gameState == GameState.WON
+                        ? buildMenu() // Shows the score, so it is built for each game
+                        : menus.computeIfAbsent(gameState, state -> buildMenu());
+                renderer.renderMenu(menu);
+                glfwSwapBuffers(window);
+                startup.report("first frame");
+            }
+            glfwWaitEvents();
         }
     }
 
-    private void update() {
-        Point newHead = snake.getNewHead();
-
-        // Check if the new head position is out of the play area
-        if (newHead.x < BORDER_OFFSET || newHead.x >= GRID_SIZE - BORDER_OFFSET ||
-                newHead.y < BORDER_OFFSET || newHead.y >= GRID_SIZE - BORDER_OFFSET) {
-            gameState = GameState.GAME_OVER;
+    private void showState(GameState state) {
+        if (state == renderedState) {
             return;
         }
-
-        // Collision with itself
-        if (snake.body.contains(newHead)) {
-            gameState = GameState.GAME_OVER;
-            return;
+        // Report how busy the main thread was while the previous menu sat idle
+        if (renderedState != null && renderedState != GameState.PLAYING) {
+            menuCpuUsage.report(renderedState + " menu");
         }
-
-        // Eating food
-        if (newHead.equals(food)) {
-            score++;
-            snake.grow(newHead);
-            spawnFood();
-        } else {
-            snake.move(newHead);
+        if (state != GameState.PLAYING) {
+            menuCpuUsage.start();
         }
+        renderedState = state;
     }
 
-    private void renderGame() {
-        setupProjection();
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-        nvgBeginFrame(vg, WINDOW_WIDTH, WINDOW_HEIGHT, 1);
-        // Render the difficulty and score
-        renderDifficultyAndScore();
-        nvgEndFrame(vg);
-        renderPlayAreaBorder();
-        renderSnake();
-        renderFood();
+    private Menu buildMenu() {
+        return switch (gameState) {
+            case MAIN_MENU -> new Menu(WINDOW_WIDTH, WINDOW_HEIGHT, "Snake Game", 0)
+                    .button("Play", this::difficultyMenu)
+                    .button("Help", this::help)
+                    .button("Quit", this::quit);
+            case HELP -> new Menu(WINDOW_WIDTH, WINDOW_HEIGHT, null, 36,
+                    "Use the arrow keys to navigate the snake towards the food.",
+                    "Avoid the walls and your own tail.",
+                    "Press 'R' to restart at any time.",
+                    "Press Backspace to go back three seconds.",
+                    "Press 'Q' to quit the game")
+                    .button("Main menu", this::mainMenu);
+            case DIFFICULTY_MENU -> new Menu(WINDOW_WIDTH, WINDOW_HEIGHT, "Choose difficulty", 0)
+                    .button("Easy", () -> play(Difficulty.EASY))
+                    .button("Medium", () -> play(Difficulty.MEDIUM))
+                    .button("Hard", () -> play(Difficulty.HARD));
+            case GAME_OVER, WON -> new Menu(WINDOW_WIDTH, WINDOW_HEIGHT,
+                    gameState == GameState.WON ? "YOU WIN" : "GAME OVER", 24,
+                    "Your score: " + simulation.engine.score,
+                    "Best score: " + highScores.best(difficulty))
+                    .button("Restart", this::restart)
+                    .button("Main menu", this::mainMenu);
+            case PLAYING -> throw new IllegalStateException("No menu while playing");
+        };
     }
 
-    private void renderSnake() {
-        glColor3f(0.1f, 0.7f, 0.1f); // Soft green
-        for (Point segment : snake.body) {
-            glBegin(GL_QUADS);
-            glVertex2f(segment.x, segment.y);
-            glVertex2f(segment.x + 1, segment.y);
-            glVertex2f(segment.x + 1, segment.y + 1);
-            glVertex2f(segment.x, segment.y + 1);
-            glEnd();
+    /**
+     * Opens the recording of a new game, or returns null when replays are not recorded.
+     */
+    private ReplayWriter startReplay(long seed) {
+        if (replayDir == null) {
+            return null;
         }
+        ReplayWriter replay;
+        try {
+            Files.createDirectories(replayDir);
+            Path file = replayDir.resolve(System.currentTimeMillis() + "-" + seed + ".replay");
+            replay = new ReplayWriter(Files.newOutputStream(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create replay file in " + replayDir, e);
+        }
+        replay.begin(difficulty, gridSize, BORDER_OFFSET, seed);
+        return replay;
     }
 
-    private void renderFood() {
-        glEnable(GL_TEXTURE_2D);
-        glBindTexture(GL_TEXTURE_2D, foodTexture);
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-
-        glColor4f(1.0f, 1.0f, 1.0f, 1.0f); // Ensure full color and alpha
-
-        glBegin(GL_QUADS);
-        glTexCoord2f(0.0f, 0.0f); glVertex2f(food.x, food.y);
-        glTexCoord2f(1.0f, 0.0f); glVertex2f(food.x + 1, food.y);
-        glTexCoord2f(1.0f, 1.0f); glVertex2f(food.x + 1, food.y + 1);
-        glTexCoord2f(0.0f, 1.0f); glVertex2f(food.x, food.y + 1);
-        glEnd();
-
-        glDisable(GL_TEXTURE_2D);
-        glDisable(GL_BLEND);
-    }
-
-    private void renderPlayAreaBorder() {
-        glColor3f(0.75f, 0.75f, 0.75f); // Light grey
-        glBegin(GL_LINE_LOOP);
-        glVertex2f(BORDER_OFFSET, BORDER_OFFSET);
-        glVertex2f(GRID_SIZE - BORDER_OFFSET, BORDER_OFFSET);
-        glVertex2f(GRID_SIZE - BORDER_OFFSET, GRID_SIZE - BORDER_OFFSET);
-        glVertex2f(BORDER_OFFSET, GRID_SIZE - BORDER_OFFSET);
-        glEnd();
-    }
-
-    private void renderGameOver() {
-        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // Clear the screen
-
-        nvgBeginFrame(vg, WINDOW_WIDTH, WINDOW_HEIGHT, 1); // Start a new frame for NanoVG
-
-        NVGColor color = NVGColor.create(); // Prepare color object
-
-        float x = WINDOW_WIDTH / 2.0f; // Halfway across the width of the window
-        float y = WINDOW_HEIGHT / 2.0f; // Halfway down the height of the window
-        float lineHeight = 68.0f;
-
-        // Draw "GAME OVER" text
-        renderCenteredText("GAME OVER", y - lineHeight * 2, 48, color);
-
-        // Draw score text
-        renderCenteredText("Your score: " + score, y - lineHeight, 24, color);
-
-        buttons.clear(); // Clear previous buttons
-
-        // Render button during game over
-        Button restartButton = new Button(x - 50, y, 100, 50, "Restart", this::restart);
-        buttons.add(restartButton);
-        renderButton(restartButton, color);
-
-        Button mainMenuButton = new Button(x - 50, y + lineHeight, 100, 50, "Main menu", this::mainMenu);
-        buttons.add(mainMenuButton);
-        renderButton(mainMenuButton, color);
-
-        nvgEndFrame(vg); // End the frame
-
-        glfwSwapBuffers(window);
+    /**
+     * Stops the simulation thread, if a game is running; the last game stays available for its score.
+     */
+    private void stopSimulation() {
+        if (simulation != null) {
+            simulation.stop();
+        }
     }
 
-    private void renderCenteredText(String text, float y, int fontSize, NVGColor color) {
-        nvgFontSize(vg, fontSize);
-        nvgFontFace(vg, "Poppins");
-        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
-        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, color); // White text color
-        nvgFillColor(vg, color);
-        nvgText(vg, WINDOW_WIDTH / 2.0f, y, text);
+    /**
+     * Reads the high score directory from -Dsnake.scoreDir, defaulting to .snake-game in the home directory.
+     */
+    private static Path scoreDirSetting() {
+        String dir = System.getProperty("snake.scoreDir");
+        return dir != null ? Path.of(dir) : Path.of(System.getProperty("user.home"), ".snake-game");
     }
 
-    private void renderButton(Button button, NVGColor color) {
-        nvgBeginPath(vg);
-        nvgRect(vg, button.x, button.y, button.width, button.height);
-
-        // Set background color for the button
-        nvgRGBA((byte)25.5, (byte)178.5, (byte)25.5, (byte)255, color); // Light gray background
-
-        nvgFillColor(vg, color);
-        nvgFill(vg);
-
-        // Set text color
-        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, color); // Black text
-        nvgFillColor(vg, color);
-        nvgFontSize(vg, 20);
-        nvgFontFace(vg, "Poppins");
-        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
-        nvgText(vg, button.x + button.width / 2.0f, button.y + button.height / 2.0f, button.label);
-
-        nvgClosePath(vg);
+    /**
+     * Reads the asset cache directory from -Dsnake.cacheDir, defaulting to .snake-game/cache in the home directory.
+     */
+    private static Path cacheDirSetting() {
+        String dir = System.getProperty("snake.cacheDir");
+        return dir != null ? Path.of(dir) : Path.of(System.getProperty("user.home"), ".snake-game", "cache");
     }
 
-    private void initNanoVG() {
-        vg = nvgCreate(NVG_ANTIALIAS | NVG_STENCIL_STROKES);
-        if (vg == NULL) {
-            throw new RuntimeException("Could not init NanoVG.");
+    private static Path replayDirSetting(Level level) {
+        String dir = System.getProperty("snake.replayDir");
+        if (dir != null && level.hasObstacles()) {
+            // Replays only record the grid size and border, so they could not be played back
+            System.err.println("Not recording replays of level " + level.name());
+            return null;
         }
+        return dir == null ? null : Path.of(dir);
+    }
 
-        // Load font from classpath resource
-        String fontPath = "/fonts/Poppins-Regular.ttf"; // Path should be relative to the classpath
-        InputStream fontInputStream = SnakeGame.class.getResourceAsStream(fontPath);
-        if (fontInputStream == null) {
-            throw new RuntimeException("Font file not found: " + fontPath);
+    /**
+     * Loads the level file named by -Dsnake.level, or builds a level of only the border.
+     */
+    private static Level levelSetting() {
+        String file = System.getProperty("snake.level");
+        if (file == null) {
+            return Level.border(gridSizeSetting(), BORDER_OFFSET);
         }
-
+        Level level;
         try {
-            // Create a temporary file to copy the font
-            File tempFile = File.createTempFile("Poppins-Regular", ".ttf");
-            tempFile.deleteOnExit();
-            try (FileOutputStream out = new FileOutputStream(tempFile);
-                 ReadableByteChannel rbc = Channels.newChannel(fontInputStream)) {
-                out.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-            }
-
-            // Load the font from the temporary file path
-            int font = nvgCreateFont(vg, "Poppins", tempFile.getAbsolutePath());
-            if (font == -1) {
-                throw new RuntimeException("Failed to create font from: " + tempFile.getAbsolutePath());
-            }
+            level = Level.map(Path.of(file), BORDER_OFFSET);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to load font resource", e);
+            throw new RuntimeException("Failed to load level " + file, e);
         }
+        if (level.gridSize() > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("Level " + file + " is larger than " + MAX_GRID_SIZE + " cells");
+        }
+        return level;
     }
 
-    private void setupProjection() {
-        glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-        // Adjusting the projection to center the grid in the window
-        glOrtho(0.0f, GRID_SIZE, GRID_SIZE, 0.0f, -1.0f, 1.0f);
-        glMatrixMode(GL_MODELVIEW);
-        glLoadIdentity();
-    }
-
-    private void renderDifficultyAndScore() {
-        nvgFontSize(vg, 36.0f);
-        nvgFontFace(vg, "Poppins");
-        nvgTextAlign(vg, NVG_ALIGN_CENTER | NVG_ALIGN_MIDDLE);
-
-        // Calculate positions
-        float scoreX = WINDOW_WIDTH / 2.0f;  // Center of the window
-        float scoreY = BORDER_OFFSET + (float) BORDER_SIZE / 2; // Near the top of the window
-        float difficultyY = WINDOW_HEIGHT - (BORDER_OFFSET + (float) BORDER_SIZE / 2); // Near the bottom of the window
-
-        NVGColor textColor = NVGColor.create();
-        nvgRGBA((byte)255, (byte)255, (byte)255, (byte)255, textColor); // White color
-        nvgFillColor(vg, textColor);
-
-        // Draw Score
-        String scoreText = "Score: " + score;
-        nvgText(vg, scoreX, scoreY, scoreText);
-
-        // Draw Difficulty
-        String difficultyText = "Difficulty: " + getDifficultyName();
-        nvgText(vg, scoreX, difficultyY, difficultyText);
+    /**
+     * Reads the grid size from -Dsnake.gridSize, defaulting to one screen.
+     */
+    private static int gridSizeSetting() {
+        int size = Integer.getInteger("snake.gridSize", VIEW_SIZE);
+        if (size <= 2 * BORDER_OFFSET + 1 || size > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException("Grid size must be between " + (2 * BORDER_OFFSET + 2)
+                    + " and " + MAX_GRID_SIZE + ": " + size);
+        }
+        return size;
     }
 
     private String getDifficultyName() {
-        if (difficulty == EASY) {
-            return "EASY";
-        } else if (difficulty == MEDIUM) {
-            return "MEDIUM";
-        } else if (difficulty == HARD) {
-            return "HARD";
-        }
-        return ""; // Default case, should not happen
+        return difficulty.name();
     }
+
     private void restart() {
+        stopSimulation();
         gameState = GameState.MAIN_MENU;
         play(difficulty);
     }
 
+    private void quit() {
+        stopSimulation();
+        highScores.close();
+        printMetrics();
+        System.exit(0);
+    }
+
+    private void printMetrics() {
+        if (PRINT_METRICS) {
+            System.out.println(metrics.dump());
+        }
+    }
+
     private void cleanup() {
+        stopSimulation();
+        highScores.close();
+        printMetrics();
+        renderer.cleanup();
+
         // Free the window callbacks and destroy the window
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
@@ -464,100 +402,6 @@ public class SnakeGame {
         glfwTerminate();
     }
 
-    private void renderMainMenu() {
-        nvgBeginFrame(vg, WINDOW_WIDTH, WINDOW_HEIGHT, 1); // Start a new frame for NanoVG
-
-        NVGColor color = NVGColor.create(); // Prepare color object
-
-        float x = WINDOW_WIDTH / 2.0f; // Halfway across the width of the window
-        float y = WINDOW_HEIGHT / 2.0f; // Halfway down the height of the window
-        float lineHeight = 68.0f;
-
-        // Draw "Snake Game" text
-        renderCenteredText("Snake Game", y - lineHeight * 2, 48, color);
-
-        buttons.clear(); // Clear previous buttons
-
-        Button playButton = new Button(x - 50, y - lineHeight, 100, 50, "Play", this::difficultyMenu);
-        buttons.add(playButton);
-        renderButton(playButton, color);
-
-        Button helpButton = new Button(x - 50, y, 100, 50, "Help", this::help);
-        buttons.add(helpButton);
-        renderButton(helpButton, color);
-
-        Button quitButton = new Button(x - 50, y + lineHeight, 100, 50, "Quit", () -> System.exit(0));
-        buttons.add(quitButton);
-        renderButton(quitButton, color);
-
-        nvgEndFrame(vg); // End the frame
-
-        glfwSwapBuffers(window);
-    }
-
-    private void renderHelpScreen() {
-        nvgBeginFrame(vg, WINDOW_WIDTH, WINDOW_HEIGHT, 1);
-
-        NVGColor color = NVGColor.create(); // Prepare color object
-
-        float x = WINDOW_WIDTH / 2.0f; // Halfway across the width of the window
-        float y = WINDOW_HEIGHT / 2.0f; // Halfway down the height of the window
-        float lineHeight = 68.0f;
-
-        // Instructions
-        String text1 = "Use the arrow keys to navigate the snake towards the food.";
-        String text2 = "Avoid the walls and your own tail.";
-        String text3 = "Press 'R' to restart at any time.";
-        String text4 = "Press 'Q' to quit the game";
-
-        renderCenteredText(text1, y - lineHeight * 2, 36, color);
-        renderCenteredText(text2, y - lineHeight, 36, color);
-        renderCenteredText(text3, y, 36, color);
-        renderCenteredText(text4, y + lineHeight, 36, color);
-
-        buttons.clear(); // Clear previous buttons
-
-        Button mainMenuButton = new Button(x - 50, y + lineHeight * 2, 100, 50, "Main menu", this::mainMenu);
-        buttons.add(mainMenuButton);
-        renderButton(mainMenuButton, color);
-
-        nvgEndFrame(vg);
-
-        glfwSwapBuffers(window);
-    }
-
-    private void renderDifficultyMenu() {
-        nvgBeginFrame(vg, WINDOW_WIDTH, WINDOW_HEIGHT, 1); // Start a new frame for NanoVG
-
-        NVGColor color = NVGColor.create(); // Prepare color object
-
-        float x = WINDOW_WIDTH / 2.0f; // Halfway across the width of the window
-        float y = WINDOW_HEIGHT / 2.0f; // Halfway down the height of the window
-        float lineHeight = 68.0f;
-
-        // Draw "Snake Game" text
-        renderCenteredText("Choose difficulty", y - lineHeight * 2, 48, color);
-
-        buttons.clear(); // Clear previous buttons
-
-        Button easyButton = new Button(x - 50, y - lineHeight, 100, 50, "Easy", () -> play(EASY));
-        buttons.add(easyButton);
-        renderButton(easyButton, color);
-
-
-        Button mediumButton = new Button(x - 50, y, 100, 50, "Medium", () -> play(MEDIUM));
-        buttons.add(mediumButton);
-        renderButton(mediumButton, color);
-
-        Button hardButton = new Button(x - 50, y + lineHeight, 100, 50, "Hard", () -> play(HARD));
-        buttons.add(hardButton);
-        renderButton(hardButton, color);
-
-        nvgEndFrame(vg); // End the frame
-
-        glfwSwapBuffers(window);
-    }
-
     public static void main(String[] args) {
         new SnakeGame().run();
     }
@@ -0,0 +1,214 @@
+package org.example;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Rasterizes the game on the CPU into an off-heap RGBA framebuffer.
+ * Needs no window or GPU, so frames can be rendered, timed and compared on
+ * any machine. Text is not rasterized; menus show their buttons only.
+ * Only the cells under the camera are visited, so the cost of a frame does
+ * not grow with the size of the grid.
+ */
+public class SoftwareRenderer implements Renderer {
+    private static final int BACKGROUND = rgb(0, 102, 199);
+    private static final int BORDER = rgb(191, 191, 191);
+    private static final int SNAKE = rgb(25, 178, 25);
+    private static final int BUTTON = rgb(25, 178, 25);
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer framebuffer; // Rows top to bottom, 4 bytes per pixel: R, G, B, A
+    private final Camera camera;
+
+    private final int[] foodPixels; // ARGB, foodWidth x foodHeight
+    private final int foodWidth;
+    private final int foodHeight;
+
+    /**
+     * @param viewSize Cells shown across the frame; larger grids scroll with the head.
+     */
+    public SoftwareRenderer(int width, int height, int viewSize) {
+        this.width = width;
+        this.height = height;
+        this.camera = new Camera(viewSize);
+        framebuffer = ByteBuffer.allocateDirect(width * height * 4);
+
+        BufferedImage food = loadImage("/textures/apple.png");
+        foodWidth = food.getWidth();
+        foodHeight = food.getHeight();
+        foodPixels = food.getRGB(0, 0, foodWidth, foodHeight, null, 0, foodWidth);
+    }
+
+    @Override
+    public void renderGame(BoardView board, String difficultyName, float alpha) {
+        clear();
+        camera.follow(board, alpha);
+        int gridSize = board.gridSize();
+        int shown = camera.cellsShown(board);
+        float scale = (float) width / shown; // Pixels per cell
+        float left = camera.left();
+        float top = camera.top();
+
+        // Play area border
+        int offset = board.borderOffset();
+        int x0 = Math.round((offset - left) * scale);
+        int y0 = Math.round((offset - top) * scale);
+        int x1 = Math.round((gridSize - offset - left) * scale);
+        int y1 = Math.round((gridSize - offset - top) * scale);
+        fillRect(x0, y0, x1 - x0 + 1, 1, BORDER);
+        fillRect(x0, y1, x1 - x0 + 1, 1, BORDER);
+        fillRect(x0, y0, 1, y1 - y0 + 1, BORDER);
+        fillRect(x1, y0, 1, y1 - y0 + 1, BORDER);
+
+        // Obstacle and body cells under the camera, without the head, which slides out of the cell it left
+        Level level = board.level();
+        boolean obstacles = level.hasObstacles();
+        int head = board.segment(0);
+        int firstX = (int) left;
+        int firstY = (int) top;
+        int lastX = Math.min((int) Math.ceil(left + shown), gridSize - 1);
+        int lastY = Math.min((int) Math.ceil(top + shown), gridSize - 1);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                int cell = y * gridSize + x;
+                if (cell != head && board.occupied(cell)) {
+                    fillCell(x - left, y - top, scale, SNAKE);
+                } else if (obstacles && level.wall(cell) && x >= offset && x < gridSize - offset
+                        && y >= offset && y < gridSize - offset) {
+                    fillCell(x - left, y - top, scale, BORDER);
+                }
+            }
+        }
+        int previousHead = board.previousHead();
+        if (previousHead == -1) {
+            fillCell(head % gridSize - left, head / gridSize - top, scale, SNAKE);
+        } else {
+            fillCell(lerp(previousHead % gridSize, head % gridSize, alpha) - left,
+                    lerp(previousHead / gridSize, head / gridSize, alpha) - top, scale, SNAKE);
+        }
+
+        // The tail slides into its cell from the one it vacated
+        int lastTail = board.lastTail();
+        if (lastTail != -1 && board.length() > 1) {
+            int tail = board.segment(board.length() - 1);
+            fillCell(lerp(lastTail % gridSize, tail % gridSize, alpha) - left,
+                    lerp(lastTail / gridSize, tail / gridSize, alpha) - top, scale, SNAKE);
+        }
+
+        int food = board.food();
+        if (food != -1) {
+            drawFood(Math.round((food % gridSize - left) * scale), Math.round((food / gridSize - top) * scale),
+                    Math.round(scale));
+        }
+    }
+
+    @Override
+    public void renderMenu(Menu menu) {
+        clear();
+        for (Button button : menu.buttons) {
+            fillRect(Math.round(button.x), Math.round(button.y), Math.round(button.width),
+                    Math.round(button.height), BUTTON);
+        }
+    }
+
+    @Override
+    public void renderOverlay(String[] lines) {
+        // Text is not rasterized
+    }
+
+    /**
+     * Returns the framebuffer; rows run top to bottom with 4 bytes (R, G, B, A) per pixel.
+     */
+    ByteBuffer framebuffer() {
+        return framebuffer;
+    }
+
+    /**
+     * Writes the current frame to a PNG file.
+     */
+    void writePng(Path path) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = (y * width + x) * 4;
+                image.setRGB(x, y, rgb(framebuffer.get(i) & 0xFF, framebuffer.get(i + 1) & 0xFF,
+                        framebuffer.get(i + 2) & 0xFF));
+            }
+        }
+        ImageIO.write(image, "png", path.toFile());
+    }
+
+    @Override
+    public void cleanup() {
+        // The framebuffer is a direct buffer released by the garbage collector
+    }
+
+    private void clear() {
+        fillRect(0, 0, width, height, BACKGROUND);
+    }
+
+    private void fillCell(float x, float y, float scale, int color) {
+        int left = Math.round(x * scale);
+        int top = Math.round(y * scale);
+        fillRect(left, top, Math.round((x + 1) * scale) - left, Math.round((y + 1) * scale) - top, color);
+    }
+
+    private void fillRect(int left, int top, int w, int h, int color) {
+        int x0 = Math.max(left, 0);
+        int y0 = Math.max(top, 0);
+        int x1 = Math.min(left + w, width);
+        int y1 = Math.min(top + h, height);
+        int rgba = color << 8 | 0xFF;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                framebuffer.putInt((y * width + x) * 4, rgba);
+            }
+        }
+    }
+
+    private void drawFood(int left, int top, int size) {
+        // Nearest-neighbour scaling with alpha blending over what is already drawn
+        for (int y = Math.max(top, 0); y < Math.min(top + size, height); y++) {
+            int sourceRow = (y - top) * foodHeight / size * foodWidth;
+            for (int x = Math.max(left, 0); x < Math.min(left + size, width); x++) {
+                int argb = foodPixels[sourceRow + (x - left) * foodWidth / size];
+                int a = argb >>> 24;
+                if (a == 0) {
+                    continue;
+                }
+                int i = (y * width + x) * 4;
+                framebuffer.put(i, blend(argb >> 16 & 0xFF, framebuffer.get(i) & 0xFF, a));
+                framebuffer.put(i + 1, blend(argb >> 8 & 0xFF, framebuffer.get(i + 1) & 0xFF, a));
+                framebuffer.put(i + 2, blend(argb & 0xFF, framebuffer.get(i + 2) & 0xFF, a));
+            }
+        }
+    }
+
+    private static byte blend(int source, int destination, int alpha) {
+        return (byte) ((source * alpha + destination * (255 - alpha)) / 255);
+    }
+
+    private static float lerp(int from, int to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+
+    private static int rgb(int r, int g, int b) {
+        return r << 16 | g << 8 | b;
+    }
+
+    private static BufferedImage loadImage(String resourcePath) {
+        try (InputStream stream = SoftwareRenderer.class.getResourceAsStream(resourcePath)) {
+            if (stream == null) {
+                throw new RuntimeException("Resource not found: " + resourcePath);
+            }
+            return ImageIO.read(stream);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load image: " + resourcePath, e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Times the phases of startup on whichever thread they run, and prints them
+ * once the first frame is on screen; phases that end later are printed as they
+ * end. Enabled with -Dsnake.startupProfile=true; otherwise phases run untimed.
+ */
+public class StartupProfile {
+    private static final boolean ENABLED = Boolean.getBoolean("snake.startupProfile");
+
+    private record Phase(String name, String thread, long start, long end) {
+    }
+
+    private final long origin = System.nanoTime();
+    private final long jvmMillis = ENABLED ? ManagementFactory.getRuntimeMXBean().getUptime() : 0; // JVM start to origin
+    private final List<Phase> phases = new ArrayList<>(); // Guarded by this
+    private boolean reported;
+
+    /**
+     * Runs a phase and records how long it took.
+     */
+    <T> T time(String name, Supplier<T> phase) {
+        if (!ENABLED) {
+            return phase.get();
+        }
+        long start = System.nanoTime();
+        T result = phase.get();
+        record(name, start, System.nanoTime());
+        return result;
+    }
+
+    void run(String name, Runnable phase) {
+        time(name, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    private synchronized void record(String name, long start, long end) {
+        Phase phase = new Phase(name, Thread.currentThread().getName(), start, end);
+        phases.add(phase);
+        if (reported) {
+            System.out.println(format(phase));
+        }
+    }
+
+    /**
+     * Prints the phases so far, the first time it is called.
+     * @param milestone What startup has reached, such as the first frame.
+     */
+    synchronized void report(String milestone) {
+        if (!ENABLED || reported) {
+            return;
+        }
+        reported = true;
+        System.out.printf("Startup: %s at %.1f ms (JVM started %d ms earlier)%n", milestone,
+                (System.nanoTime() - origin) / 1e6, jvmMillis);
+        phases.sort(Comparator.comparingLong(Phase::start));
+        for (Phase phase : phases) {
+            System.out.println(format(phase));
+        }
+    }
+
+    private String format(Phase phase) {
+        return String.format("  %-28s %8.1f ms  from %8.1f ms  on %s", phase.name,
+                (phase.end - phase.start) / 1e6, (phase.start - origin) / 1e6, phase.thread);
+    }
+}
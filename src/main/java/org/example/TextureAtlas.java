@@ -0,0 +1,275 @@
+package org.example;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+import static org.lwjgl.system.MemoryUtil.memCalloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Packs images into one texture. The decoded atlas is cached in a file that
+ * later runs map into memory and upload as it is, skipping the PNG decoding;
+ * the cache is keyed by a checksum of the source images, so it is rebuilt
+ * whenever one of them changes.
+ * <p>
+ * Loading does no GL calls and may run on any thread; upload() must run on
+ * the thread that owns the GL context.
+ */
+public class TextureAtlas {
+    private static final int CACHE_MAGIC = 0x534E4B41; // "SNKA"
+    private static final int CACHE_VERSION = 1;
+    private static final int PADDING = 1; // Transparent pixels between images, so filtering does not bleed
+
+    /**
+     * Texture coordinates of one image in the atlas.
+     */
+    record Region(float u0, float v0, float u1, float v1) {
+    }
+
+    final int width;
+    final int height;
+    private final int[] rects; // x, y, width, height of each image, in the order of the resource paths
+    private final Map<String, Region> regions = new HashMap<>();
+    private ByteBuffer pixels; // RGBA rows, null once uploaded
+    private final boolean ownsPixels; // Whether pixels is native memory to free, rather than a file mapping
+    private int texture;
+
+    private TextureAtlas(String[] resourcePaths, int[] rects, int width, int height, ByteBuffer pixels,
+                         boolean ownsPixels) {
+        this.width = width;
+        this.height = height;
+        this.rects = rects;
+        this.pixels = pixels;
+        this.ownsPixels = ownsPixels;
+        for (int i = 0; i < resourcePaths.length; i++) {
+            float x = rects[4 * i];
+            float y = rects[4 * i + 1];
+            regions.put(resourcePaths[i], new Region(x / width, y / height,
+                    (x + rects[4 * i + 2]) / width, (y + rects[4 * i + 3]) / height));
+        }
+    }
+
+    /**
+     * Loads the atlas of the given classpath images from the cache file, or
+     * decodes and packs them and writes the cache file for next time.
+     */
+    static TextureAtlas load(Path cacheFile, String... resourcePaths) {
+        ByteBuffer[] sources = new ByteBuffer[resourcePaths.length];
+        try {
+            CRC32 checksum = new CRC32();
+            for (int i = 0; i < resourcePaths.length; i++) {
+                sources[i] = Assets.readResource(resourcePaths[i]);
+                checksum.update(resourcePaths[i].getBytes(StandardCharsets.UTF_8));
+                checksum.update(sources[i].duplicate());
+            }
+            long key = checksum.getValue();
+
+            TextureAtlas cached = readCache(cacheFile, key, resourcePaths);
+            if (cached != null) {
+                return cached;
+            }
+            TextureAtlas atlas = build(sources, resourcePaths);
+            atlas.writeCache(cacheFile, key, resourcePaths);
+            return atlas;
+        } finally {
+            for (ByteBuffer source : sources) {
+                if (source != null) {
+                    memFree(source);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the texture and releases the pixels; call on the GL thread.
+     */
+    void upload() {
+        texture = TextureLoader.uploadTexture(pixels, width, height);
+        if (ownsPixels) {
+            memFree(pixels);
+        }
+        pixels = null; // A mapping is released by the garbage collector
+    }
+
+    int texture() {
+        return texture;
+    }
+
+    Region region(String resourcePath) {
+        Region region = regions.get(resourcePath);
+        if (region == null) {
+            throw new IllegalArgumentException("Not in the atlas: " + resourcePath);
+        }
+        return region;
+    }
+
+    void cleanup() {
+        if (texture != 0) {
+            glDeleteTextures(texture);
+        }
+        if (pixels != null && ownsPixels) {
+            memFree(pixels);
+        }
+        pixels = null;
+    }
+
+    private static TextureAtlas build(ByteBuffer[] sources, String[] resourcePaths) {
+        int count = sources.length;
+        ByteBuffer[] images = new ByteBuffer[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            for (int i = 0; i < count; i++) {
+                images[i] = TextureLoader.decodeRgba(sources[i], resourcePaths[i], w, h);
+                widths[i] = w.get(0);
+                heights[i] = h.get(0);
+            }
+
+            int[] rects = pack(widths, heights);
+            int atlasWidth = rects[4 * count];
+            int atlasHeight = rects[4 * count + 1];
+            ByteBuffer pixels = memCalloc(atlasWidth * atlasHeight * 4);
+            for (int i = 0; i < count; i++) {
+                int x = rects[4 * i];
+                int y = rects[4 * i + 1];
+                int rowBytes = widths[i] * 4;
+                for (int row = 0; row < heights[i]; row++) {
+                    pixels.put((y + row) * atlasWidth * 4 + x * 4, images[i], row * rowBytes, rowBytes);
+                }
+            }
+            return new TextureAtlas(resourcePaths, rects, atlasWidth, atlasHeight, pixels, true);
+        } finally {
+            for (ByteBuffer image : images) {
+                if (image != null) {
+                    STBImage.stbi_image_free(image);
+                }
+            }
+        }
+    }
+
+    /**
+     * Places the images on shelves, tallest first.
+     * @return x, y, width and height of each image in input order, followed by the atlas width and height,
+     *         both powers of two.
+     */
+    static int[] pack(int[] widths, int[] heights) {
+        int count = widths.length;
+        Integer[] order = new Integer[count];
+        long area = 0;
+        int widest = 1;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            area += (long) widths[i] * heights[i];
+            widest = Math.max(widest, widths[i]);
+        }
+        Arrays.sort(order, (a, b) -> heights[b] - heights[a]);
+        int atlasWidth = powerOfTwo(Math.max(widest, (int) Math.ceil(Math.sqrt(area))));
+
+        int[] rects = new int[4 * count + 2];
+        int x = 0;
+        int y = 0;
+        int shelfHeight = 0;
+        for (int i : order) {
+            if (x + widths[i] > atlasWidth) {
+                // Start a new shelf under the current one
+                x = 0;
+                y += shelfHeight + PADDING;
+                shelfHeight = 0;
+            }
+            rects[4 * i] = x;
+            rects[4 * i + 1] = y;
+            rects[4 * i + 2] = widths[i];
+            rects[4 * i + 3] = heights[i];
+            x += widths[i] + PADDING;
+            shelfHeight = Math.max(shelfHeight, heights[i]);
+        }
+        rects[4 * count] = atlasWidth;
+        rects[4 * count + 1] = powerOfTwo(y + shelfHeight);
+        return rects;
+    }
+
+    /*
+     * Cache layout: int magic, int version, long key, int width, int height, int count,
+     * then x, y, width, height of each image in the order of the resource paths,
+     * then the RGBA pixels row by row.
+     */
+
+    private static TextureAtlas readCache(Path cacheFile, long key, String[] resourcePaths) {
+        if (!Files.exists(cacheFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = resourcePaths.length;
+            int headerBytes = headerBytes(count);
+            if (map.capacity() < headerBytes || map.getInt() != CACHE_MAGIC || map.getInt() != CACHE_VERSION
+                    || map.getLong() != key) {
+                return null;
+            }
+            int width = map.getInt();
+            int height = map.getInt();
+            if (map.getInt() != count || map.capacity() != headerBytes + width * height * 4) {
+                return null;
+            }
+            int[] rects = new int[4 * count];
+            for (int i = 0; i < rects.length; i++) {
+                rects[i] = map.getInt();
+            }
+            ByteBuffer pixels = map.slice(headerBytes, width * height * 4);
+            return new TextureAtlas(resourcePaths, rects, width, height, pixels, false);
+        } catch (IOException e) {
+            return null; // An unreadable cache is rebuilt
+        }
+    }
+
+    private void writeCache(Path cacheFile, long key, String[] resourcePaths) {
+        ByteBuffer header = ByteBuffer.allocate(headerBytes(resourcePaths.length));
+        header.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(key).putInt(width).putInt(height)
+                .putInt(resourcePaths.length);
+        for (int i = 0; i < 4 * resourcePaths.length; i++) {
+            header.putInt(rects[i]);
+        }
+        header.flip();
+
+        Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer body = pixels.duplicate().clear();
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, body});
+                }
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Only startup time suffers; the atlas is decoded again next run
+            System.err.println("Failed to write texture cache " + cacheFile + ": " + e);
+        }
+    }
+
+    private static int headerBytes(int count) {
+        return 5 * Integer.BYTES + Long.BYTES + 4 * Integer.BYTES * count;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
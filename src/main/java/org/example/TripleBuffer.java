@@ -0,0 +1,70 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands the latest of a stream of values from one producer thread to one
+ * consumer thread without locks. Each side owns one of three buffers and they
+ * trade through the third, so neither ever waits for the other and the
+ * consumer never sees a buffer while it is being written.
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4; // Set while the middle buffer holds a value the consumer has not taken
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(2); // Index of the buffer in between, plus FRESH
+    private int back = 0; // Producer only
+    private int front = 1; // Consumer only
+
+    /**
+     * @param factory Creates each of the three buffers; the consumer reads buffer 1 until the first publish().
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * Returns the buffer the producer writes next.
+     */
+    @SuppressWarnings("unchecked")
+    T back() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Returns which of the three buffers back() is, from 0 to 2.
+     */
+    int backIndex() {
+        return back;
+    }
+
+    /**
+     * Makes the back buffer the latest value and gives the producer another buffer to write.
+     */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Returns the latest published value; it stays valid until the next call.
+     */
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return (T) buffers[front];
+    }
+
+    /**
+     * Returns one of the three buffers, for filling them all before the producer and consumer threads start.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        return (T) buffers[index];
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArenaEngineTest {
+    private static final int GRID_SIZE = 8; // A 6x6 play area
+    private static final int BORDER_OFFSET = 1;
+
+    @Test
+    void headsSwappingCellsBothDie() {
+        ArenaEngine arena = emptyArena();
+        arena.place(0, new int[]{cell(2, 3)}, Direction.RIGHT);
+        arena.place(1, new int[]{cell(3, 3)}, Direction.LEFT);
+        arena.step(inputs(ArenaEngine.NO_INPUT, ArenaEngine.NO_INPUT));
+        assertFalse(arena.alive[0]);
+        assertFalse(arena.alive[1]);
+        assertEquals(0, arena.living);
+    }
+
+    @Test
+    void headsEnteringOneCellBothDie() {
+        ArenaEngine arena = emptyArena();
+        arena.place(0, new int[]{cell(2, 3)}, Direction.RIGHT);
+        arena.place(1, new int[]{cell(4, 3)}, Direction.LEFT);
+        arena.step(inputs(ArenaEngine.NO_INPUT, ArenaEngine.NO_INPUT));
+        assertFalse(arena.alive[0]);
+        assertFalse(arena.alive[1]);
+        assertEquals(0, arena.living);
+    }
+
+    @Test
+    void headMayEnterTheCellATailLeaves() {
+        ArenaEngine arena = emptyArena();
+        arena.place(0, new int[]{cell(2, 2), cell(3, 2), cell(4, 2)}, Direction.RIGHT);
+        arena.place(1, new int[]{cell(2, 4), cell(2, 3)}, Direction.UP); // Into snake 0's tail
+        arena.step(inputs(ArenaEngine.NO_INPUT, ArenaEngine.NO_INPUT));
+
+        assertEquals(2, arena.living);
+        assertEquals(cell(5, 2), arena.segment(0, 0));
+        assertEquals(cell(3, 2), arena.segment(0, 2), "Snake 0 kept its length");
+        assertEquals(cell(2, 2), arena.segment(1, 0));
+        assertEquals(2, arena.length[1]);
+        assertTrue(arena.blocked(2, 2), "The cell belongs to snake 1 now");
+    }
+
+    @Test
+    void headDiesOnATailThatStaysToEat() {
+        ArenaEngine arena = emptyArena();
+        arena.place(0, new int[]{cell(2, 2), cell(3, 2), cell(4, 2)}, Direction.RIGHT);
+        arena.place(1, new int[]{cell(2, 4), cell(2, 3)}, Direction.UP);
+        arena.placeFood(cell(5, 2));
+        arena.step(inputs(ArenaEngine.NO_INPUT, ArenaEngine.NO_INPUT));
+
+        assertTrue(arena.alive[0]);
+        assertFalse(arena.alive[1], "Snake 0 grew instead of leaving its tail cell");
+        assertEquals(4, arena.length[0]);
+        assertEquals(cell(2, 2), arena.segment(0, 3));
+        assertEquals(1, arena.score[0]);
+    }
+
+    @Test
+    void headDiesOnAnotherSnakesBody() {
+        ArenaEngine arena = emptyArena();
+        arena.place(0, new int[]{cell(2, 2), cell(3, 2), cell(4, 2)}, Direction.RIGHT);
+        arena.place(1, new int[]{cell(3, 4), cell(3, 3)}, Direction.UP); // Into the middle of snake 0
+        arena.step(inputs(ArenaEngine.NO_INPUT, ArenaEngine.NO_INPUT));
+
+        assertTrue(arena.alive[0]);
+        assertFalse(arena.alive[1]);
+        assertEquals(1, arena.living);
+        assertTrue(arena.blocked(3, 2), "Snake 0's body is untouched");
+        assertFalse(arena.blocked(3, 3), "The dead snake's body is cleared");
+        assertFalse(arena.blocked(3, 4), "The dead snake's body is cleared");
+    }
+
+    /**
+     * Returns an arena of two snakes, both dead and ready to be placed, with no food.
+     */
+    private static ArenaEngine emptyArena() {
+        ArenaEngine arena = new ArenaEngine(GRID_SIZE, BORDER_OFFSET, 2, 0, new Rng(1));
+        arena.kill(0);
+        arena.kill(1);
+        return arena;
+    }
+
+    private static int cell(int x, int y) {
+        return y * GRID_SIZE + x;
+    }
+
+    private static byte[] inputs(byte first, byte second) {
+        return new byte[]{first, second};
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkEngineTest {
+    private static final int GRID_SIZE = 16; // Small, so the greedy snakes fill it up and trap themselves
+    private static final int BORDER_OFFSET = 2;
+    private static final int GAMES = 64;
+    private static final int MAX_TICKS = 20_000;
+
+    @Test
+    void rejectsBatchesTooLargeForItsArrays() {
+        // 3000 * 1024 * 1024 cells overflow an int index; nothing is allocated before the check
+        assertThrows(IllegalArgumentException.class, () -> new BulkEngine(3000, 1024, 2));
+        assertThrows(IllegalArgumentException.class, () -> new BulkEngine(1, 50_000, 2));
+    }
+
+    @Test
+    void playsLikeGameEngine() {
+        BulkEngine bulk = new BulkEngine(GAMES, GRID_SIZE, BORDER_OFFSET);
+        GameEngine[] engines = new GameEngine[GAMES];
+        for (int g = 0; g < GAMES; g++) {
+            bulk.reset(g, g);
+            engines[g] = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(g));
+        }
+
+        // Mostly greedy moves, with random ones mixed in to reach the walls and try reversing
+        Controller controller = new GreedyController();
+        Random random = new Random(1);
+        Direction[] directions = Direction.values();
+        byte[] inputs = new byte[GAMES];
+        int scored = 0;
+        for (int t = 0; t < MAX_TICKS && playing(engines); t++) {
+            Direction[] chosen = new Direction[GAMES];
+            for (int g = 0; g < GAMES; g++) {
+                chosen[g] = random.nextInt(8) == 0
+                        ? directions[random.nextInt(directions.length)]
+                        : controller.next(engines[g]);
+                inputs[g] = chosen[g] == null ? BulkEngine.NO_INPUT : (byte) chosen[g].ordinal();
+            }
+            bulk.step(inputs);
+            for (int g = 0; g < GAMES; g++) {
+                engines[g].step(chosen[g]);
+                assertSame(engines[g], bulk, g, t);
+            }
+        }
+        for (GameEngine engine : engines) {
+            assertTrue(engine.state != GameState.PLAYING, "Every game ends within " + MAX_TICKS + " ticks");
+            scored += engine.score;
+        }
+        assertTrue(scored > GAMES, "The games eat and grow");
+    }
+
+    private static boolean playing(GameEngine[] engines) {
+        for (GameEngine engine : engines) {
+            if (engine.state == GameState.PLAYING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertSame(GameEngine engine, BulkEngine bulk, int g, int t) {
+        String where = "Game " + g + " at tick " + t;
+        assertEquals(engine.state, state(bulk.state[g]), where);
+        assertEquals(engine.tick, bulk.tick[g], where);
+        assertEquals(engine.score, bulk.score[g], where);
+        assertEquals(engine.food, bulk.food[g], where);
+        assertEquals(engine.length(), bulk.length[g], where);
+        for (int i = 0; i < engine.length(); i++) {
+            assertEquals(engine.segment(i), bulk.segment(g, i), where + ", segment " + i);
+        }
+    }
+
+    private static GameState state(byte state) {
+        return switch (state) {
+            case BulkEngine.PLAYING -> GameState.PLAYING;
+            case BulkEngine.GAME_OVER -> GameState.GAME_OVER;
+            case BulkEngine.WON -> GameState.WON;
+            default -> throw new AssertionError("Unknown state " + state);
+        };
+    }
+}
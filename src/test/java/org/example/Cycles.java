@@ -0,0 +1,38 @@
+package org.example;
+
+/**
+ * A Hamiltonian cycle of the play area, for tests that need a snake that never dies.
+ */
+final class Cycles {
+    private Cycles() {
+    }
+
+    /**
+     * Returns, for every play-area cell, the direction to the next cell of the cycle.
+     * Along the top row, then back and forth over the other columns, then up the first column.
+     * The play area must have an even side length.
+     */
+    static Direction[] directions(int gridSize, int borderOffset) {
+        int n = gridSize - 2 * borderOffset;
+        if (n % 2 != 0) {
+            throw new IllegalArgumentException("Play area side must be even: " + n);
+        }
+        Direction[] next = new Direction[gridSize * gridSize];
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                Direction direction;
+                if (y == 0) {
+                    direction = x == n - 1 ? Direction.DOWN : Direction.RIGHT;
+                } else if (x == 0) {
+                    direction = Direction.UP;
+                } else if (y % 2 == 1) {
+                    direction = x > 1 ? Direction.LEFT : (y == n - 1 ? Direction.LEFT : Direction.DOWN);
+                } else {
+                    direction = x < n - 1 ? Direction.RIGHT : Direction.DOWN;
+                }
+                next[(y + borderOffset) * gridSize + x + borderOffset] = direction;
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistanceFieldTest {
+    private static final int BORDER_OFFSET = 2;
+    private static final int TICKS = 20_000;
+
+    @Test
+    void repairsLikeAFullSearchOnAnOpenBoard() {
+        playAndCompare(Level.border(30, BORDER_OFFSET));
+    }
+
+    @Test
+    void repairsLikeAFullSearchAroundWalls() throws IOException {
+        Path text = Path.of("levels/corners.txt");
+        playAndCompare(Level.parse("corners", Files.readAllLines(text), BORDER_OFFSET));
+    }
+
+    /**
+     * Plays games with mostly path-following moves, and random ones mixed in to
+     * crash into walls and the body, and checks after every tick that the
+     * incrementally repaired field matches a search of the whole grid.
+     */
+    private static void playAndCompare(Level level) {
+        GameEngine game = new GameEngine(level, new Rng(3));
+        Controller controller = new PathController();
+        DistanceField repaired = new DistanceField(level);
+        DistanceField searched = new DistanceField(level);
+        Random random = new Random(5);
+        Direction[] directions = Direction.values();
+        int cells = level.gridSize() * level.gridSize();
+        int games = 1;
+        int repairs = 0; // Ticks the field followed without a full search
+
+        repaired.update(game);
+        for (int t = 0; t < TICKS; t++) {
+            if (game.state != GameState.PLAYING) {
+                game.reset();
+                games++;
+            }
+            int food = game.food;
+            game.step(random.nextInt(6) == 0 ? directions[random.nextInt(directions.length)] : controller.next(game));
+            if (game.state == GameState.PLAYING && game.food == food) {
+                repairs++;
+            }
+
+            repaired.update(game);
+            searched.rebuild(game);
+            for (int cell = 0; cell < cells; cell++) {
+                assertEquals(searched.distance(cell), repaired.distance(cell),
+                        "Cell " + cell + " in game " + games + " at tick " + game.tick);
+            }
+        }
+        assertTrue(games > 1, "The random moves end games");
+        assertTrue(repairs > TICKS / 2, "Ticks repaired: " + repairs);
+    }
+}
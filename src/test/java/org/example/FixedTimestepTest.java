@@ -0,0 +1,53 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixedTimestepTest {
+    private static final int MAX_STEPS = 5;
+    private static final double FRAME = 1.0 / 60;
+
+    @Test
+    void ticksAtTheDifficultyRateDespiteJitter() {
+        assertEquals(1000, ticksIn(100, Difficulty.EASY));
+        assertEquals(1428, ticksIn(100, Difficulty.MEDIUM));
+        assertEquals(2000, ticksIn(100, Difficulty.HARD));
+    }
+
+    @Test
+    void catchesUpAtMostFiveStepsAfterAStall() {
+        FixedTimestep timestep = new FixedTimestep(Difficulty.EASY.secondsPerTick, MAX_STEPS, 0);
+        assertEquals(1, timestep.advance(0.1));
+
+        // A one second stall owes ten ticks, of which only five are run
+        assertEquals(MAX_STEPS, timestep.advance(1.15));
+        assertEquals(0.5f, timestep.alpha(), 1e-4f);
+
+        // The rest is dropped rather than run over the following frames
+        assertEquals(0, timestep.advance(1.19));
+        assertEquals(1, timestep.advance(1.21));
+    }
+
+    /**
+     * Counts the ticks of a simulated 60 Hz frame loop whose frames are up to 4 ms early or late.
+     */
+    private static int ticksIn(double seconds, Difficulty difficulty) {
+        Random random = new Random(difficulty.ordinal());
+        FixedTimestep timestep = new FixedTimestep(difficulty.secondsPerTick, MAX_STEPS, 0);
+        int ticks = 0;
+        int frames = (int) Math.round(seconds / FRAME);
+        for (int frame = 1; frame <= frames; frame++) {
+            double now = frame == frames ? seconds : frame * FRAME + (random.nextDouble() - 0.5) * 0.008;
+            int steps = timestep.advance(now);
+            assertTrue(steps <= MAX_STEPS);
+            float alpha = timestep.alpha();
+            assertTrue(alpha >= 0 && alpha < 1, "alpha " + alpha);
+            ticks += steps;
+        }
+        return ticks;
+    }
+}
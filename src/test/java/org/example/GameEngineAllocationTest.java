@@ -0,0 +1,43 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameEngineAllocationTest {
+    private static final int GRID_SIZE = 64; // Large enough that following the cycle does not fill the board during the test
+    private static final int BORDER_OFFSET = 2;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void stepsWithoutAllocating() {
+        GameEngine engine = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(1));
+        Direction[] cycle = Cycles.directions(GRID_SIZE, BORDER_OFFSET);
+        // Warm up, so the hot path is compiled before it is measured
+        run(engine, cycle, 50_000);
+        assertEquals(GameState.PLAYING, engine.state);
+
+        int score = engine.score;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        run(engine, cycle, 100_000);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(GameState.PLAYING, engine.state);
+        assertTrue(engine.score > score, "The measured ticks include eating and spawning food");
+        assertEquals(0, allocated, "Bytes allocated over 100000 ticks");
+    }
+
+    /**
+     * Steps along the cycle, eating whatever food lies on it.
+     */
+    private static void run(GameEngine engine, Direction[] cycle, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            engine.step(cycle[engine.segment(0)]);
+        }
+    }
+}
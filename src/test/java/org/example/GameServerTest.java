@@ -0,0 +1,125 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServerTest {
+    private static final int GRID_SIZE = 16; // Small, so snakes eat, collide and respawn
+    private static final int BORDER_OFFSET = 1;
+    private static final int ROOM_SIZE = 3;
+    private static final int CLIENTS = 6; // Two full rooms
+    private static final long TICK_NANOS = 2_000_000;
+    private static final int TICKS = 300;
+
+    /**
+     * Plays two rooms over localhost with clients turning at random, and checks
+     * that once every message has been read, each client's mirror holds the same
+     * bodies, food and tick as the engine of its room.
+     */
+    @Test
+    void mirrorsEndUpLikeTheirRoom() throws IOException, InterruptedException {
+        SocketChannel[] channels = new SocketChannel[CLIENTS];
+        ByteBuffer[] buffers = new ByteBuffer[CLIENTS];
+        ArenaMirror[] mirrors = new ArenaMirror[CLIENTS];
+        Random random = new Random(3);
+        GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", 0), GRID_SIZE, BORDER_OFFSET,
+                ROOM_SIZE, ROOM_SIZE, TICK_NANOS, 1);
+        try {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.port());
+            // One at a time, so client i is seated at snake i % ROOM_SIZE of room i / ROOM_SIZE
+            for (int i = 0; i < CLIENTS; i++) {
+                channels[i] = SocketChannel.open(address);
+                buffers[i] = ByteBuffer.allocate(64 * 1024);
+                mirrors[i] = new ArenaMirror();
+                while (read(channels[i], buffers[i], mirrors[i]) == 0) {
+                    // Blocks until the welcome message is in
+                }
+                assertEquals(i % ROOM_SIZE, mirrors[i].self, "Seat of client " + i);
+                channels[i].configureBlocking(false);
+            }
+
+            ByteBuffer turn = ByteBuffer.allocate(1);
+            long seated = server.ticks();
+            while (server.ticks() - seated < TICKS) {
+                for (int i = 0; i < CLIENTS; i++) {
+                    read(channels[i], buffers[i], mirrors[i]);
+                    if (random.nextInt(4) == 0) {
+                        turn.clear().put((byte) random.nextInt(4)).flip();
+                        channels[i].write(turn);
+                    }
+                }
+                Thread.sleep(1);
+            }
+        } finally {
+            server.close();
+        }
+
+        // Everything the server wrote before closing is still there to read, up to the end of the stream
+        for (int i = 0; i < CLIENTS; i++) {
+            channels[i].configureBlocking(true);
+            while (channels[i].read(buffers[i]) >= 0) {
+                apply(buffers[i], mirrors[i]);
+            }
+            channels[i].close();
+            apply(buffers[i], mirrors[i]);
+            assertEquals(0, buffers[i].position(), "Client " + i + " was left part of a message");
+        }
+
+        for (int i = 0; i < CLIENTS; i++) {
+            ArenaEngine arena = server.arena(i / ROOM_SIZE);
+            ArenaMirror mirror = mirrors[i];
+            String client = "Client " + i;
+            assertEquals(arena.tick, mirror.tick, client);
+            assertTrue(arena.tick >= TICKS, client + " saw only " + arena.tick + " ticks");
+            assertEquals(ROOM_SIZE, mirror.snakes(), client);
+            for (int s = 0; s < ROOM_SIZE; s++) {
+                assertEquals(arena.length[s], mirror.length(s), client + ", length of snake " + s);
+                for (int j = 0; j < arena.length[s]; j++) {
+                    assertEquals(arena.segment(s, j), mirror.segment(s, j), client + ", snake " + s + " segment " + j);
+                }
+            }
+            assertEquals(arena.food, mirror.food, client);
+            for (int cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+                assertEquals(arena.food(cell), mirror.food(cell), client + ", food at " + cell);
+            }
+        }
+    }
+
+    /**
+     * Reads what the channel has and applies the complete messages.
+     * @return The number of messages applied.
+     */
+    private static int read(SocketChannel channel, ByteBuffer buffer, ArenaMirror mirror) throws IOException {
+        if (channel.read(buffer) < 0) {
+            throw new IOException("The server closed the connection early");
+        }
+        return apply(buffer, mirror);
+    }
+
+    /**
+     * Applies every complete message in the buffer to the mirror, keeping a partial one for the next read.
+     * @return The number of messages applied.
+     */
+    private static int apply(ByteBuffer buffer, ArenaMirror mirror) {
+        ByteBuffer in = buffer.flip();
+        int count = 0;
+        for (int framed = ArenaProtocol.framedLength(in); framed != -1 && framed <= in.remaining();
+             framed = ArenaProtocol.framedLength(in)) {
+            int length = ArenaProtocol.getVarInt(in);
+            mirror.apply(in.slice(in.position(), length));
+            in.position(in.position() + length);
+            count++;
+        }
+        in.compact();
+        return count;
+    }
+}
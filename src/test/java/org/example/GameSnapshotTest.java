@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSnapshotTest {
+    private static final int GRID_SIZE = 30;
+    private static final int BORDER_OFFSET = 2;
+    private static final long SEED = 11;
+    private static final int MAX_TICKS = 2_000;
+    private static final int ROUNDS = 60;
+
+    /**
+     * Plays a game with a snapshot after every tick, then keeps going back to
+     * random earlier ticks, first down a branch of different moves and then back
+     * onto the recorded game. Replaying the recorded moves from any restored
+     * snapshot must give the same board as playing them from the start.
+     */
+    @Test
+    void restoredGamesReplayLikeTheOriginal() {
+        GameEngine game = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(SEED));
+        Controller controller = new GreedyController();
+        Random random = new Random(2);
+        Direction[] directions = Direction.values();
+        List<Direction> inputs = new ArrayList<>(); // Input of each tick, null to go straight
+        List<GameSnapshot> snapshots = new ArrayList<>(); // Snapshot after each tick, from tick 0
+        snapshots.add(game.snapshot());
+        while (game.state == GameState.PLAYING && game.tick < MAX_TICKS) {
+            Direction input = random.nextInt(8) == 0 ? directions[random.nextInt(directions.length)] : controller.next(game);
+            inputs.add(input);
+            game.step(input);
+            snapshots.add(game.snapshot());
+        }
+        int ticks = inputs.size();
+        assertTrue(game.score > 10, "Score " + game.score);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // A branch the recorded game never took, snapshotted every tick as the game would
+            game.restore(snapshots.get(random.nextInt(ticks + 1)));
+            for (int t = random.nextInt(50); t > 0; t--) {
+                game.step(directions[random.nextInt(directions.length)]);
+                game.snapshot();
+            }
+
+            // Back onto the recorded game, replayed for a while from an earlier tick
+            int from = random.nextInt(ticks + 1);
+            int to = from + random.nextInt(ticks - from + 1);
+            game.restore(snapshots.get(from));
+            assertSameBoard(replay(inputs, from), game, "Restored tick " + from);
+            for (int t = from; t < to; t++) {
+                game.step(inputs.get(t));
+                // The new snapshot stands in for the old one, so later rounds restore snapshots taken after a restore
+                snapshots.set(t + 1, game.snapshot());
+            }
+            assertSameBoard(replay(inputs, to), game, "Replayed from tick " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Plays the recorded inputs from the start of a new game up to the given tick.
+     */
+    private static GameEngine replay(List<Direction> inputs, int ticks) {
+        GameEngine game = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(SEED));
+        for (int t = 0; t < ticks; t++) {
+            game.step(inputs.get(t));
+        }
+        return game;
+    }
+
+    private static void assertSameBoard(GameEngine expected, GameEngine actual, String where) {
+        assertEquals(expected.tick, actual.tick, where);
+        assertEquals(expected.state, actual.state, where);
+        assertEquals(expected.score, actual.score, where);
+        assertEquals(expected.food, actual.food, where);
+        assertEquals(expected.snake.direction, actual.snake.direction, where);
+        assertEquals(expected.length(), actual.length(), where);
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.segment(i), actual.segment(i), where + ", segment " + i);
+        }
+        assertEquals(expected.freeCells.size(), actual.freeCells.size(), where + ", free cells");
+        for (int cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+            assertEquals(expected.occupied(cell), actual.occupied(cell), where + ", cell " + cell);
+            assertEquals(expected.freeCells.contains(cell), actual.freeCells.contains(cell), where + ", free cell " + cell);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class HighScoreStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopsReadingTheLogAtADamagedRecord() throws IOException {
+        ByteBuffer log = ByteBuffer.allocate(3 * 13);
+        log.put((byte) Difficulty.EASY.ordinal()).putInt(5).putLong(1);
+        log.put((byte) 42).putInt(7).putLong(2); // No such difficulty
+        log.put((byte) Difficulty.EASY.ordinal()).putInt(9).putLong(3);
+        Files.write(directory.resolve("scores.log"), log.array());
+
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            assertEquals(List.of(new HighScoreStore.Entry(5, 1)), store.top(Difficulty.EASY));
+            store.submit(Difficulty.EASY, 6);
+        }
+        // The damaged tail is gone, and the score saved after it reads back
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            assertEquals(List.of(6, 5), store.top(Difficulty.EASY).stream().map(HighScoreStore.Entry::score).toList());
+        }
+    }
+
+    @Test
+    void startsWithoutADamagedSnapshot() throws IOException {
+        Files.write(directory.resolve("scores.snapshot"), new byte[]{1, 2, 3, 4, 5, 6});
+        ByteBuffer log = ByteBuffer.allocate(13);
+        log.put((byte) Difficulty.HARD.ordinal()).putInt(11).putLong(1);
+        Files.write(directory.resolve("scores.log"), log.array());
+
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            assertEquals(11, store.best(Difficulty.HARD));
+            assertEquals(0, store.best(Difficulty.EASY));
+        }
+        assertTrue(Files.exists(directory.resolve("scores.snapshot.corrupt")));
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            assertEquals(11, store.best(Difficulty.HARD));
+        }
+    }
+
+    @Test
+    void startsWithoutASnapshotCutShort() throws IOException {
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            store.submit(Difficulty.MEDIUM, 3);
+        }
+        Path snapshot = directory.resolve("scores.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 4));
+
+        try (HighScoreStore store = new HighScoreStore(directory)) {
+            assertEquals(0, store.best(Difficulty.MEDIUM));
+        }
+    }
+
+    @Test
+    void keepsScoresInMemoryOnceTheLogCannotBeWritten() throws IOException {
+        // Every write to /dev/full fails as if the disk were full
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.exists(full), "Needs /dev/full");
+        Files.createSymbolicLink(directory.resolve("scores.log"), full);
+
+        HighScoreStore store = new HighScoreStore(directory);
+        store.submit(Difficulty.EASY, 5);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (!store.failed()) {
+                Thread.sleep(10);
+            }
+        });
+
+        // Scores still rank, and close() does not wait on the writer that gave up
+        store.submit(Difficulty.EASY, 8);
+        assertEquals(List.of(8, 5), store.top(Difficulty.EASY).stream().map(HighScoreStore.Entry::score).toList());
+        assertTimeoutPreemptively(Duration.ofSeconds(1), store::close);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputQueueTest {
+    @Test
+    void twoTurnsInOneTickTakeTwoTicks() {
+        InputQueue queue = new InputQueue(16);
+        queue.offer(Direction.UP, 1);
+        queue.offer(Direction.LEFT, 2);
+
+        assertEquals(Direction.UP, queue.pollTurn(Direction.RIGHT));
+        assertEquals(1, queue.turnPressTime());
+        assertEquals(Direction.LEFT, queue.pollTurn(Direction.UP));
+        assertEquals(2, queue.turnPressTime());
+        assertNull(queue.pollTurn(Direction.LEFT));
+    }
+
+    @Test
+    void dropsReversalsAndRepeats() {
+        InputQueue queue = new InputQueue(16);
+        queue.offer(Direction.LEFT, 1); // Reverses a snake heading right
+        queue.offer(Direction.RIGHT, 2); // Repeats the heading
+        queue.offer(Direction.DOWN, 3);
+
+        assertEquals(Direction.DOWN, queue.pollTurn(Direction.RIGHT));
+        assertEquals(3, queue.turnPressTime());
+        assertNull(queue.pollTurn(Direction.DOWN));
+
+        queue.offer(Direction.UP, 4);
+        assertNull(queue.pollTurn(Direction.DOWN), "Only a reversal was waiting");
+        assertNull(queue.poll(), "The reversal was taken off the queue");
+    }
+
+    @Test
+    void refusesPressesWhenFull() {
+        InputQueue queue = new InputQueue(3); // Rounded up to 4
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(Direction.values()[i], i));
+        }
+        assertFalse(queue.offer(Direction.UP, 4));
+
+        // Taking one press makes room for one more
+        assertEquals(Direction.UP, queue.poll());
+        assertTrue(queue.offer(Direction.LEFT, 5));
+        assertFalse(queue.offer(Direction.LEFT, 6));
+    }
+
+    @Test
+    void wrapsAroundTheRing() {
+        InputQueue queue = new InputQueue(4);
+        Direction[] directions = Direction.values();
+        // Many times the capacity, a few presses at a time, so every slot is reused
+        for (int i = 0; i < 100; i += 3) {
+            for (int j = i; j < i + 3; j++) {
+                assertTrue(queue.offer(directions[j % 4], j));
+            }
+            for (int j = i; j < i + 3; j++) {
+                assertEquals(directions[j % 4], queue.poll(), "Press " + j);
+                assertEquals(j, queue.turnPressTime());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void clearDropsWaitingPresses() {
+        InputQueue queue = new InputQueue(4);
+        queue.offer(Direction.UP, 1);
+        queue.offer(Direction.LEFT, 2);
+        queue.clear();
+        assertNull(queue.poll());
+
+        // The whole ring is free again
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(Direction.DOWN, i));
+        }
+        assertEquals(Direction.DOWN, queue.pollTurn(Direction.LEFT));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelTest {
+    private static final int BORDER_OFFSET = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsThroughALevelFile() throws IOException {
+        Level parsed = corners();
+        Path file = directory.resolve("corners.lvl");
+        parsed.write(file);
+        Level mapped = Level.map(file, BORDER_OFFSET);
+
+        assertEquals(parsed.gridSize(), mapped.gridSize());
+        assertTrue(mapped.hasObstacles());
+        for (int cell = 0; cell < parsed.gridSize() * parsed.gridSize(); cell++) {
+            assertEquals(parsed.wall(cell), mapped.wall(cell), "Cell " + cell);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedAndForeignFiles() throws IOException {
+        Path file = directory.resolve("corners.lvl");
+        corners().write(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = directory.resolve("truncated.lvl");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> Level.map(truncated, BORDER_OFFSET));
+        Files.write(truncated, Arrays.copyOf(bytes, 3)); // Cut off inside the header
+        assertThrows(IOException.class, () -> Level.map(truncated, BORDER_OFFSET));
+
+        Path foreign = directory.resolve("foreign.lvl");
+        byte[] badMagic = bytes.clone();
+        badMagic[0] ^= 1;
+        Files.write(foreign, badMagic);
+        assertThrows(IOException.class, () -> Level.map(foreign, BORDER_OFFSET));
+    }
+
+    @Test
+    void addsTheBorderOnLoading() throws IOException {
+        int gridSize = 12;
+        // A file without a single wall in it
+        ByteBuffer empty = ByteBuffer.allocate(Integer.BYTES + 1 + Integer.BYTES + 3 * Long.BYTES);
+        empty.putInt(Level.MAGIC).put(Level.VERSION).putInt(gridSize);
+        Path file = directory.resolve("empty.lvl");
+        Files.write(file, empty.array());
+
+        Level mapped = Level.map(file, BORDER_OFFSET);
+        Level parsed = Level.parse("empty", Collections.nCopies(gridSize, ".".repeat(gridSize)), BORDER_OFFSET);
+        for (Level level : new Level[]{mapped, parsed}) {
+            assertFalse(level.hasObstacles(), level.name());
+            for (int y = 0; y < gridSize; y++) {
+                for (int x = 0; x < gridSize; x++) {
+                    boolean border = x < BORDER_OFFSET || x >= gridSize - BORDER_OFFSET
+                            || y < BORDER_OFFSET || y >= gridSize - BORDER_OFFSET;
+                    assertEquals(border, level.wall(y * gridSize + x), level.name() + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsFoodAndBodyOffTheWalls() throws IOException {
+        Level level = corners();
+        GameEngine game = new GameEngine(level, new Rng(4));
+        Controller controller = new GreedyController();
+        Random random = new Random(6);
+        Direction[] directions = Direction.values();
+        int cells = level.gridSize() * level.gridSize();
+        int games = 1;
+        for (int t = 0; t < 20_000; t++) {
+            if (game.state != GameState.PLAYING) {
+                game.reset();
+                games++;
+            }
+            // Random moves now and then, so games also end against the walls
+            game.step(random.nextInt(10) == 0 ? directions[random.nextInt(directions.length)] : controller.next(game));
+
+            String where = "Game " + games + " at tick " + game.tick;
+            assertTrue(game.food == -1 || !level.wall(game.food), where + ": food on a wall");
+            for (int i = 0; i < game.length(); i++) {
+                assertFalse(level.wall(game.segment(i)), where + ": segment " + i + " on a wall");
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                assertFalse(level.wall(cell) && game.freeCells.contains(cell), where + ": wall " + cell + " counted free");
+            }
+        }
+        assertTrue(games > 1, "The random moves end games");
+    }
+
+    private static Level corners() throws IOException {
+        return Level.parse("corners", Files.readAllLines(Path.of("levels/corners.txt")), BORDER_OFFSET);
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathControllerTest {
+    private static final int GRID_SIZE = 30;
+    private static final int BORDER_OFFSET = 2;
+    private static final int TARGET_SCORE = 50;
+
+    @Test
+    void reachesTheTargetWithoutABlockedMove() {
+        GameEngine game = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(1));
+        Controller controller = new PathController();
+        while (game.score < TARGET_SCORE) {
+            assertEquals(GameState.PLAYING, game.state, "Game ended at score " + game.score);
+            Direction chosen = controller.next(game);
+            // Null and reversals keep the snake going straight
+            Direction move = chosen == null || chosen == game.snake.direction.opposite() ? game.snake.direction : chosen;
+            if (anyMoveSurvives(game)) {
+                assertFalse(blocked(game, move), "Blocked move " + move + " on tick " + game.tick);
+            }
+            game.step(chosen);
+        }
+        // Heads for the food instead of wandering: on average within twice the play area's side per piece
+        int side = GRID_SIZE - 2 * BORDER_OFFSET;
+        assertTrue(game.tick < 2L * side * TARGET_SCORE, "Took " + game.tick + " ticks");
+    }
+
+    private static boolean anyMoveSurvives(GameEngine game) {
+        for (Direction direction : Direction.values()) {
+            if (direction != game.snake.direction.opposite() && !blocked(game, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean blocked(GameEngine game, Direction direction) {
+        return game.blocked(game.snake.headX() + direction.dx(), game.snake.headY() + direction.dy());
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayReaderTest {
+    private static final int GRID_SIZE = 30;
+    private static final int BORDER_OFFSET = 2;
+
+    @Test
+    void skipsATruncatedLastReplay() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayWriter writer = new ReplayWriter(bytes)) {
+            record(writer, 1);
+            record(writer, 2);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        byte[] whole = bytes.toByteArray();
+        int firstLength = firstReplayLength(whole);
+
+        // Cut the second replay at every possible point: the first one still reads and verifies
+        for (int cut = firstLength; cut < whole.length; cut++) {
+            ReplayReader reader = new ReplayReader(ByteBuffer.wrap(Arrays.copyOf(whole, cut)));
+            Replay first = reader.next();
+            assertNotNull(first);
+            assertTrue(new ReplayPlayer(first).verify());
+            if (cut > firstLength) {
+                assertTrue(reader.hasNext());
+                assertNull(reader.next(), "Replay cut after " + (cut - firstLength) + " bytes");
+                assertNull(reader.damage(), "A cut replay is truncated, not damaged");
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void skipsTheRestOfTheBufferFromADamagedReplay() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayWriter writer = new ReplayWriter(bytes)) {
+            record(writer, 1);
+            record(writer, 2);
+            record(writer, 3);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        byte[] whole = bytes.toByteArray();
+        int firstLength = firstReplayLength(whole);
+
+        assertDamaged(whole, firstLength, firstLength, (byte) 0); // Magic
+        assertDamaged(whole, firstLength, firstLength + 4, (byte) 9); // Version
+        assertDamaged(whole, firstLength, firstLength + 5, (byte) 7); // Difficulty
+        assertDamaged(whole, firstLength, firstLength + 6, (byte) 0); // Grid size
+        assertDamaged(whole, firstLength, firstLength - 1, (byte) 42); // End state of the first replay
+        // Grid size, border offset and seed run together into a varint longer than a long
+        byte[] endless = new byte[11];
+        Arrays.fill(endless, (byte) -1);
+        assertDamaged(whole, firstLength, firstLength + 6, endless);
+    }
+
+    /**
+     * Overwrites bytes of the first or second of three replays and checks that the
+     * damaged replay is reported and the ones after it are skipped.
+     */
+    private static void assertDamaged(byte[] whole, int firstLength, int offset, byte... bytes) {
+        byte[] damaged = whole.clone();
+        System.arraycopy(bytes, 0, damaged, offset, bytes.length);
+        ReplayReader reader = new ReplayReader(ByteBuffer.wrap(damaged));
+        Replay first = reader.next();
+        if (offset < firstLength) {
+            assertNull(first, "Damaged first replay, byte " + offset);
+        } else {
+            assertNotNull(first);
+            assertTrue(new ReplayPlayer(first).verify());
+            assertNull(reader.next(), "Damaged second replay, byte " + offset);
+        }
+        assertNotNull(reader.damage(), "Byte " + offset + " is reported as damage");
+        assertFalse(reader.hasNext(), "The third replay is skipped with the damaged one");
+    }
+
+    /**
+     * Records a game with random turns, up to 500 ticks long.
+     */
+    private static void record(ReplayWriter writer, long seed) {
+        GameEngine engine = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(seed));
+        Rng turns = new Rng(seed + 100);
+        writer.begin(Difficulty.MEDIUM, GRID_SIZE, BORDER_OFFSET, seed);
+        while (engine.state == GameState.PLAYING && engine.tick < 500) {
+            Direction input = turns.nextInt(4) == 0 ? Direction.values()[turns.nextInt(4)] : null;
+            if (input != null) {
+                writer.input(engine.tick + 1, input);
+            }
+            engine.step(input);
+        }
+        writer.end(engine);
+    }
+
+    private static int firstReplayLength(byte[] whole) {
+        ByteBuffer buffer = ByteBuffer.wrap(whole);
+        new ReplayReader(buffer).next();
+        return buffer.position();
+    }
+}
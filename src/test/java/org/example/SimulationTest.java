@@ -0,0 +1,109 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationTest {
+    private static final int GRID_SIZE = 64; // Two chunks across, and room for the cycle to last the test
+    private static final int BORDER_OFFSET = 2;
+    private static final long RUN_NANOS = 5_000_000_000L;
+    private static final int MAX_STALL_MS = 500; // Ten HARD ticks
+    private static final double TICK_NANOS = Difficulty.HARD.secondsPerTick * 1e9;
+    // Well above a tick, for a loaded machine, but below the gaps a handoff waiting for the reader would leave
+    private static final long MAX_TICK_GAP_NANOS = 4 * (long) TICK_NANOS;
+
+    @TempDir
+    Path scores;
+
+    /**
+     * A reader that stalls for up to ten ticks while holding a snapshot must neither
+     * hold up the ticks nor miss a chunk change: a mirror that only rebuilds the dirty
+     * chunks of each snapshot it takes always matches the whole board.
+     * <p>
+     * The timing checks leave room for a loaded machine: the simulation must keep at
+     * least 80% of its tick rate, and never go four ticks without one.
+     */
+    @Test
+    void stalledReaderBlocksNoTickAndMissesNoChunk() throws InterruptedException {
+        Direction[] cycle = Cycles.directions(GRID_SIZE, BORDER_OFFSET);
+        GameEngine engine = new GameEngine(GRID_SIZE, BORDER_OFFSET, new Rng(7));
+        FrameMetrics metrics = new FrameMetrics();
+        try (HighScoreStore highScores = new HighScoreStore(scores)) {
+            Simulation simulation = new Simulation(engine, Difficulty.HARD, new InputQueue(16), null, highScores,
+                    metrics, game -> cycle[game.segment(0)]);
+            boolean[] mirror = new boolean[GRID_SIZE * GRID_SIZE];
+            Random random = new Random(1);
+            long firstTick = simulation.latest().tick();
+            long lastTick = -1;
+            long mostTicksPerStall = 0;
+            int frames = 0;
+
+            long started = System.nanoTime();
+            simulation.start();
+            long end = started + RUN_NANOS;
+            while (System.nanoTime() < end) {
+                BoardSnapshot board = simulation.latest();
+                long tick = board.tick();
+                assertTrue(tick >= lastTick, "Tick " + tick + " came after tick " + lastTick);
+                if (lastTick != -1) {
+                    // Every tick since the last snapshot was taken while the reader held that snapshot
+                    mostTicksPerStall = Math.max(mostTicksPerStall, tick - lastTick);
+                }
+                lastTick = tick;
+
+                rebuildDirtyChunks(board, mirror);
+                for (int cell = 0; cell < mirror.length; cell++) {
+                    assertEquals(board.occupied(cell), mirror[cell], "Stale cell " + cell + " at tick " + tick);
+                }
+                frames++;
+
+                Thread.sleep(random.nextInt(MAX_STALL_MS + 1));
+                assertEquals(tick, board.tick(), "A held snapshot changed");
+            }
+            simulation.stop();
+            long elapsed = System.nanoTime() - started;
+
+            assertEquals(GameState.PLAYING, engine.state);
+            assertTrue(frames > 10, "Frames: " + frames);
+            assertTrue(lastTick > firstTick, "Ticks advanced");
+            // A handoff that waited for the reader could publish at most twice into the
+            // two buffers the reader does not hold before blocking
+            assertTrue(mostTicksPerStall >= 3, "Most ticks during one stall: " + mostTicksPerStall);
+
+            long ticks = engine.tick - firstTick;
+            long expected = (long) (0.8 * elapsed / TICK_NANOS);
+            assertTrue(ticks >= expected, ticks + " ticks in " + elapsed / 1_000_000 + " ms, expected " + expected);
+            long longestGap = metrics.tickInterval.max();
+            assertTrue(longestGap < MAX_TICK_GAP_NANOS, "Longest gap between ticks: " + longestGap / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Copies the occupancy of every dirty chunk into the mirror and cleans the chunk, as a renderer would.
+     */
+    private static void rebuildDirtyChunks(BoardSnapshot board, boolean[] mirror) {
+        ChunkGrid chunks = board.chunks();
+        int perSide = chunks.chunksPerSide();
+        for (int cy = 0; cy < perSide; cy++) {
+            for (int cx = 0; cx < perSide; cx++) {
+                int chunk = cy * perSide + cx;
+                if (!chunks.isDirty(chunk)) {
+                    continue;
+                }
+                for (int y = cy * ChunkGrid.CHUNK_SIZE; y < Math.min(GRID_SIZE, (cy + 1) * ChunkGrid.CHUNK_SIZE); y++) {
+                    for (int x = cx * ChunkGrid.CHUNK_SIZE; x < Math.min(GRID_SIZE, (cx + 1) * ChunkGrid.CHUNK_SIZE); x++) {
+                        mirror[y * GRID_SIZE + x] = board.occupied(y * GRID_SIZE + x);
+                    }
+                }
+                chunks.clean(chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextureAtlasTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadsTheAtlasFromItsCache() throws IOException {
+        Path cache = directory.resolve("atlas.bin");
+        TextureAtlas built = TextureAtlas.load(cache, Assets.FOOD_TEXTURE);
+        built.cleanup();
+        assertTrue(Files.exists(cache));
+        byte[] written = Files.readAllBytes(cache);
+        FileTime writtenAt = Files.getLastModifiedTime(cache);
+
+        TextureAtlas cached = TextureAtlas.load(cache, Assets.FOOD_TEXTURE);
+        cached.cleanup();
+        assertEquals(built.width, cached.width);
+        assertEquals(built.height, cached.height);
+        assertEquals(built.region(Assets.FOOD_TEXTURE), cached.region(Assets.FOOD_TEXTURE));
+        // Served from the file rather than decoded and written again
+        assertEquals(writtenAt, Files.getLastModifiedTime(cache));
+        assertArrayEquals(written, Files.readAllBytes(cache));
+    }
+
+    @Test
+    void rebuildsADamagedCache() throws IOException {
+        Path cache = directory.resolve("atlas.bin");
+        TextureAtlas.load(cache, Assets.FOOD_TEXTURE).cleanup();
+        byte[] written = Files.readAllBytes(cache);
+        Files.write(cache, new byte[]{1, 2, 3});
+
+        TextureAtlas rebuilt = TextureAtlas.load(cache, Assets.FOOD_TEXTURE);
+        rebuilt.cleanup();
+        assertArrayEquals(written, Files.readAllBytes(cache));
+    }
+}